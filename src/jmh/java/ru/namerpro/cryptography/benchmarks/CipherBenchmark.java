@@ -0,0 +1,80 @@
+package ru.namerpro.cryptography.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
+import ru.namerpro.cryptography.symmetricencrypters.deal.DEAL;
+import ru.namerpro.cryptography.symmetricencrypters.des.DES;
+import ru.namerpro.cryptography.symmetricencrypters.rijndael.Rijndael;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single block of every cipher, alone and within a batch of {@link #BATCH_BLOCKS} blocks going through
+ * the multi-block methods. Cipher is encoded as NAME[-BLOCK_BITS]-KEY_BITS.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CipherBenchmark {
+
+    private static final int BATCH_BLOCKS = 8;
+
+    @Param({
+            "DES-64",
+            "DEAL-128", "DEAL-192", "DEAL-256",
+            "RIJNDAEL-128-128", "RIJNDAEL-128-192", "RIJNDAEL-128-256",
+            "RIJNDAEL-192-128", "RIJNDAEL-192-192", "RIJNDAEL-192-256",
+            "RIJNDAEL-256-128", "RIJNDAEL-256-192", "RIJNDAEL-256-256"
+    })
+    private String cipher;
+
+    private SymmetricEncrypter encrypter;
+    private byte[] block;
+    private byte[] blocks;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] parts = cipher.split("-");
+        byte[] key = new byte[Integer.parseInt(parts[parts.length - 1]) / 8];
+        random.nextBytes(key);
+        encrypter = switch (parts[0]) {
+            case "DES" -> new DES(key);
+            case "DEAL" -> new DEAL(key);
+            case "RIJNDAEL" -> new Rijndael(Rijndael.RijndaelBlockSize.valueOf("SZ_" + parts[1] + "_BITS"), key, (byte) 0x1B);
+            default -> throw new IllegalArgumentException("Unknown cipher: " + cipher);
+        };
+        block = new byte[encrypter.getBlockSize()];
+        random.nextBytes(block);
+        blocks = new byte[BATCH_BLOCKS * encrypter.getBlockSize()];
+        random.nextBytes(blocks);
+    }
+
+    @Benchmark
+    public byte[] encryptBlock() {
+        encrypter.encryptBlock(block, 0, block, 0);
+        return block;
+    }
+
+    @Benchmark
+    public byte[] decryptBlock() {
+        encrypter.decryptBlock(block, 0, block, 0);
+        return block;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_BLOCKS)
+    public byte[] encryptBlocks() {
+        encrypter.encryptBlocks(blocks, 0, blocks, 0, BATCH_BLOCKS);
+        return blocks;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_BLOCKS)
+    public byte[] decryptBlocks() {
+        encrypter.decryptBlocks(blocks, 0, blocks, 0, BATCH_BLOCKS);
+        return blocks;
+    }
+
+}
@@ -0,0 +1,64 @@
+package ru.namerpro.cryptography.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.namerpro.cryptography.context.SymmetricEncrypterContext;
+import ru.namerpro.cryptography.context.encrypter.Encrypter;
+import ru.namerpro.cryptography.padding.Padding;
+import ru.namerpro.cryptography.symmetricencrypters.rijndael.Rijndael;
+
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-message throughput of every mode and padding through SymmetricEncrypterContext with 128-bit Rijndael.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ContextBenchmark {
+
+    @Param
+    private ru.namerpro.cryptography.mode.Mode mode;
+
+    @Param
+    private Padding padding;
+
+    @Param({ "1024", "1048576", "104857600" })
+    private int size;
+
+    private SymmetricEncrypterContext context;
+    private byte[] data;
+    private byte[] encrypted;
+
+    @Setup
+    public void setUp() throws ExecutionException, InterruptedException {
+        Random random = new Random(42);
+        byte[] key = new byte[16];
+        byte[] iv = mode == ru.namerpro.cryptography.mode.Mode.ECB ? null : new byte[mode == ru.namerpro.cryptography.mode.Mode.CTR ? 8 : 16];
+        random.nextBytes(key);
+        if (iv != null) {
+            random.nextBytes(iv);
+        }
+        data = new byte[size];
+        random.nextBytes(data);
+        context = new SymmetricEncrypterContext(Encrypter.RIJNDAEL, key, mode, padding, iv, Rijndael.RijndaelBlockSize.SZ_128_BITS, 0x11B);
+        encrypted = context.encrypt(data).get();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws ExecutionException, InterruptedException {
+        return context.encrypt(data).get();
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws ExecutionException, InterruptedException {
+        return context.decrypt(encrypted).get();
+    }
+
+}
@@ -0,0 +1,48 @@
+package ru.namerpro.cryptography.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.namerpro.cryptography.asymmetricencrypters.rsa.RSA;
+
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RSABenchmark {
+
+    @Param({ "1024", "2048" })
+    private int keyBitLength;
+
+    @Param({ "32", "1024" })
+    private int messageSize;
+
+    private RSA rsa;
+    private RSA.RSAKeyGenerator.PublicKey publicKey;
+    private RSA.RSAKeyGenerator.PrivateKey privateKey;
+    private byte[] message;
+    private byte[][] encrypted;
+
+    @Setup
+    public void setUp() throws ExecutionException, InterruptedException {
+        rsa = new RSA(keyBitLength);
+        var keys = rsa.getKeyGeneratorInstance().getKeys();
+        publicKey = keys.getKey();
+        privateKey = keys.getValue();
+        message = new byte[messageSize];
+        new Random(42).nextBytes(message);
+        encrypted = rsa.encrypt(message, publicKey).get();
+    }
+
+    @Benchmark
+    public byte[][] encrypt() throws ExecutionException, InterruptedException {
+        return rsa.encrypt(message, publicKey).get();
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws ExecutionException, InterruptedException {
+        return rsa.decrypt(encrypted, privateKey).get();
+    }
+
+}
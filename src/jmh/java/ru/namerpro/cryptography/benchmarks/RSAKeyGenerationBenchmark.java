@@ -0,0 +1,38 @@
+package ru.namerpro.cryptography.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.namerpro.cryptography.asymmetricencrypters.rsa.RSA;
+import ru.namerpro.cryptography.utils.Pair;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key generation is dominated by the primality test, so every test type is measured separately.
+ * Each invocation is a separate search for primes, hence single shot with plenty of measurements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+public class RSAKeyGenerationBenchmark {
+
+    @Param
+    private RSA.ProbabilityTestType testType;
+
+    @Param({ "1024", "2048" })
+    private int keyBitLength;
+
+    private RSA.RSAKeyGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new RSA.RSAKeyGenerator(testType, 0.995f, keyBitLength);
+    }
+
+    @Benchmark
+    public Pair<RSA.RSAKeyGenerator.PublicKey, RSA.RSAKeyGenerator.PrivateKey> generateKeys() {
+        return generator.getKeys();
+    }
+
+}
@@ -0,0 +1,37 @@
+package ru.namerpro.cryptography.api.symmetric;
+
+/**
+ * Cipher implementing only {@link SymmetricEncrypter#encrypt(byte[])} and {@link SymmetricEncrypter#decrypt(byte[])},
+ * with the block size supplied by its user. See {@link SymmetricEncrypter#withBlockSize(SymmetricEncrypter, int)}.
+ */
+class BlockSizeAdapter implements SymmetricEncrypter {
+
+    private final SymmetricEncrypter encrypter;
+    private final int blockSize;
+
+    BlockSizeAdapter(SymmetricEncrypter encrypter, int blockSize) {
+        this.encrypter = encrypter;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public byte[] encrypt(byte[] block) {
+        return encrypter.encrypt(block);
+    }
+
+    @Override
+    public byte[] decrypt(byte[] block) {
+        return encrypter.decrypt(block);
+    }
+
+    @Override
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    @Override
+    public void wipe() {
+        encrypter.wipe();
+    }
+
+}
@@ -1,9 +1,118 @@
 package ru.namerpro.cryptography.api.symmetric;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 public interface SymmetricEncrypter {
 
     byte[] encrypt(byte[] block);
 
     byte[] decrypt(byte[] block);
 
+    /**
+     * @return size of a block in bytes, or 0 if the cipher does not report it. Such ciphers only work through
+     * the block-level methods once adapted by {@link #withBlockSize(SymmetricEncrypter, int)}.
+     */
+    default int getBlockSize() {
+        return 0;
+    }
+
+    /**
+     * @return cipher itself if it reports a block size, otherwise view of it reporting blockSize and running
+     * the block-level methods through {@link #encrypt(byte[])} and {@link #decrypt(byte[])}
+     */
+    static SymmetricEncrypter withBlockSize(SymmetricEncrypter encrypter, int blockSize) {
+        if (encrypter.getBlockSize() > 0) {
+            return encrypter;
+        }
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive, but " + blockSize + " found!");
+        }
+        return new BlockSizeAdapter(encrypter, blockSize);
+    }
+
+    /**
+     * Encrypts block of {@link #getBlockSize()} bytes starting at src[srcOff] and writes result to dst[dstOff].
+     * Source and destination may be the same array region. Default implementation adapts {@link #encrypt(byte[])},
+     * ciphers are expected to override it with allocation-free version.
+     */
+    default void encryptBlock(byte[] src, int srcOff, byte[] dst, int dstOff) {
+        byte[] out = encrypt(Arrays.copyOfRange(src, srcOff, srcOff + requireBlockSize()));
+        System.arraycopy(out, 0, dst, dstOff, getBlockSize());
+    }
+
+    /**
+     * Decrypts block of {@link #getBlockSize()} bytes starting at src[srcOff] and writes result to dst[dstOff].
+     * Source and destination may be the same array region. Default implementation adapts {@link #decrypt(byte[])},
+     * ciphers are expected to override it with allocation-free version.
+     */
+    default void decryptBlock(byte[] src, int srcOff, byte[] dst, int dstOff) {
+        byte[] out = decrypt(Arrays.copyOfRange(src, srcOff, srcOff + requireBlockSize()));
+        System.arraycopy(out, 0, dst, dstOff, getBlockSize());
+    }
+
+    /**
+     * Encrypts block of {@link #getBlockSize()} bytes at absolute index srcIndex of src and writes result at absolute
+     * index dstIndex of dst, ignoring and keeping positions and limits of both. Buffers backed by accessible arrays
+     * are handed to {@link #encryptBlock(byte[], int, byte[], int)}, others go through a block-sized array unless
+     * the cipher overrides it.
+     */
+    default void encryptBlock(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex) {
+        if (src.hasArray() && dst.hasArray()) {
+            encryptBlock(src.array(), src.arrayOffset() + srcIndex, dst.array(), dst.arrayOffset() + dstIndex);
+            return;
+        }
+        byte[] block = new byte[requireBlockSize()];
+        src.get(srcIndex, block);
+        encryptBlock(block, 0, block, 0);
+        dst.put(dstIndex, block);
+    }
+
+    /**
+     * Decrypts block of {@link #getBlockSize()} bytes at absolute index srcIndex of src and writes result at absolute
+     * index dstIndex of dst. See {@link #encryptBlock(ByteBuffer, int, ByteBuffer, int)}.
+     */
+    default void decryptBlock(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex) {
+        if (src.hasArray() && dst.hasArray()) {
+            decryptBlock(src.array(), src.arrayOffset() + srcIndex, dst.array(), dst.arrayOffset() + dstIndex);
+            return;
+        }
+        byte[] block = new byte[requireBlockSize()];
+        src.get(srcIndex, block);
+        decryptBlock(block, 0, block, 0);
+        dst.put(dstIndex, block);
+    }
+
+    /**
+     * Encrypts blocksCount consecutive blocks. Ciphers able to process many blocks at once may override it.
+     */
+    default void encryptBlocks(byte[] src, int srcOff, byte[] dst, int dstOff, int blocksCount) {
+        for (int i = 0; i < blocksCount; ++i) {
+            encryptBlock(src, srcOff + i * getBlockSize(), dst, dstOff + i * getBlockSize());
+        }
+    }
+
+    /**
+     * Decrypts blocksCount consecutive blocks. Ciphers able to process many blocks at once may override it.
+     */
+    default void decryptBlocks(byte[] src, int srcOff, byte[] dst, int dstOff, int blocksCount) {
+        for (int i = 0; i < blocksCount; ++i) {
+            decryptBlock(src, srcOff + i * getBlockSize(), dst, dstOff + i * getBlockSize());
+        }
+    }
+
+    /**
+     * Overwrites expanded key material. The cipher must not be used afterwards.
+     */
+    default void wipe() {
+    }
+
+    private int requireBlockSize() {
+        int blockSize = getBlockSize();
+        if (blockSize <= 0) {
+            throw new UnsupportedOperationException("Cipher does not report its block size, adapt it with SymmetricEncrypter.withBlockSize first!");
+        }
+        return blockSize;
+    }
+
 }
@@ -0,0 +1,26 @@
+package ru.namerpro.cryptography.api.symmetric.modes;
+
+import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
+
+/**
+ * Encrypt mode authenticating the ciphertext while processing it: state of a message accumulates everything
+ * passed through apply or reverse, and the tag of the whole message is taken from it at the end.
+ */
+public interface AuthenticatedMode extends SymmetricEncryptMode {
+
+    int getTagSize();
+
+    int getNonceSize();
+
+    /**
+     * @return state of a new message authenticated under nonce of {@link #getNonceSize()} bytes. A nonce must never
+     * be used for two messages under the same key
+     */
+    ChainingState getInitialState(int blockSize, byte[] nonce);
+
+    /**
+     * @return tag of the ciphertext processed with state so far; the state must not be used afterwards
+     */
+    byte[] getTag(ChainingState state, SymmetricEncrypter encrypter);
+
+}
@@ -0,0 +1,25 @@
+package ru.namerpro.cryptography.api.symmetric.modes;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Chaining state of an encrypt mode that has to survive between consecutive portions of one message:
+ * feedback block for CBC, PCBC, CFB and OFB and index of the next block for CTR and RD.
+ */
+@Getter
+public class ChainingState {
+
+    private final byte[] feedback;
+    @Setter
+    private long blockIndex;
+
+    public ChainingState(byte[] feedback) {
+        this.feedback = feedback == null ? null : feedback.clone();
+    }
+
+    public void advance(long blocksCount) {
+        blockIndex += blocksCount;
+    }
+
+}
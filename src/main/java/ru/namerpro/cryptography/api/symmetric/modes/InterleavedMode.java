@@ -0,0 +1,17 @@
+package ru.namerpro.cryptography.api.symmetric.modes;
+
+import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
+
+/**
+ * Encrypt mode whose encryption is serial within one message. Independent messages still can go together:
+ * every step takes the next block of each of them, so the cipher is always given a batch of unrelated blocks.
+ */
+public interface InterleavedMode extends SymmetricEncryptMode {
+
+    /**
+     * Encrypts every src[i] (whole number of blocks) into dst[i] continuing the chain of states[i].
+     * Messages may be of different length, and dst[i] may be src[i].
+     */
+    void applyInterleaved(byte[][] src, byte[][] dst, int blockSize, SymmetricEncrypter encrypter, ChainingState[] states);
+
+}
@@ -0,0 +1,18 @@
+package ru.namerpro.cryptography.api.symmetric.modes;
+
+/**
+ * Encrypt mode whose chaining state at any block of a message is known without processing the preceding blocks,
+ * so that any block-aligned region of a message can be processed on its own.
+ */
+public interface SeekableMode extends SymmetricEncryptMode {
+
+    /**
+     * @return state continuing the chain from block blockIndex of a message
+     */
+    default ChainingState getStateAt(long blockIndex, int blockSize) {
+        ChainingState state = getInitialState(blockSize);
+        state.setBlockIndex(blockIndex);
+        return state;
+    }
+
+}
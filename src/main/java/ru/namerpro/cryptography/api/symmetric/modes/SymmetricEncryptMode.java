@@ -2,10 +2,96 @@ package ru.namerpro.cryptography.api.symmetric.modes;
 
 import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
 
+import java.nio.ByteBuffer;
+
 public interface SymmetricEncryptMode {
 
-    byte[] apply(byte[] src, int blockSize, SymmetricEncrypter encrypter);
+    ChainingState getInitialState(int blockSize);
+
+    /**
+     * Encrypts length bytes (multiple of blockSize) of src starting at srcOff into dst starting at dstOff,
+     * continuing the chain described by state and updating it. Source and destination regions must not overlap.
+     */
+    void apply(byte[] src, int srcOff, byte[] dst, int dstOff, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state);
+
+    /**
+     * Decrypts length bytes (multiple of blockSize) of src starting at srcOff into dst starting at dstOff,
+     * continuing the chain described by state and updating it. Source and destination regions must not overlap.
+     */
+    void reverse(byte[] src, int srcOff, byte[] dst, int dstOff, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state);
+
+    /**
+     * Same as {@link #apply(byte[], int, byte[], int, int, int, SymmetricEncrypter, ChainingState)} on absolute indexes
+     * of buffers, which may be direct. Positions and limits are neither used nor changed.
+     */
+    void apply(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state);
+
+    /**
+     * Same as {@link #reverse(byte[], int, byte[], int, int, int, SymmetricEncrypter, ChainingState)} on absolute indexes
+     * of buffers, which may be direct. Positions and limits are neither used nor changed.
+     */
+    void reverse(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state);
+
+    /**
+     * Encrypts all remaining bytes of src (multiple of blockSize) into dst and advances positions of both by their amount,
+     * like {@link javax.crypto.Cipher#update(ByteBuffer, ByteBuffer)}. Buffers backed by accessible arrays are processed
+     * by the byte[] version, others are accessed in place.
+     * @return amount of bytes written to dst
+     */
+    default int apply(ByteBuffer src, ByteBuffer dst, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        int length = checkBuffers(src, dst, blockSize);
+        encrypter = SymmetricEncrypter.withBlockSize(encrypter, blockSize);
+        if (src.hasArray() && dst.hasArray()) {
+            apply(src.array(), src.arrayOffset() + src.position(), dst.array(), dst.arrayOffset() + dst.position(), length, blockSize, encrypter, state);
+        } else {
+            apply(src, src.position(), dst, dst.position(), length, blockSize, encrypter, state);
+        }
+        src.position(src.position() + length);
+        dst.position(dst.position() + length);
+        return length;
+    }
+
+    /**
+     * Decrypts all remaining bytes of src (multiple of blockSize) into dst and advances positions of both by their amount.
+     * See {@link #apply(ByteBuffer, ByteBuffer, int, SymmetricEncrypter, ChainingState)}.
+     * @return amount of bytes written to dst
+     */
+    default int reverse(ByteBuffer src, ByteBuffer dst, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        int length = checkBuffers(src, dst, blockSize);
+        encrypter = SymmetricEncrypter.withBlockSize(encrypter, blockSize);
+        if (src.hasArray() && dst.hasArray()) {
+            reverse(src.array(), src.arrayOffset() + src.position(), dst.array(), dst.arrayOffset() + dst.position(), length, blockSize, encrypter, state);
+        } else {
+            reverse(src, src.position(), dst, dst.position(), length, blockSize, encrypter, state);
+        }
+        src.position(src.position() + length);
+        dst.position(dst.position() + length);
+        return length;
+    }
+
+    default byte[] apply(byte[] src, int blockSize, SymmetricEncrypter encrypter) {
+        encrypter = SymmetricEncrypter.withBlockSize(encrypter, blockSize);
+        byte[] dst = new byte[src.length];
+        apply(src, 0, dst, 0, src.length, blockSize, encrypter, getInitialState(blockSize));
+        return dst;
+    }
+
+    default byte[] reverse(byte[] src, int blockSize, SymmetricEncrypter encrypter) {
+        encrypter = SymmetricEncrypter.withBlockSize(encrypter, blockSize);
+        byte[] dst = new byte[src.length];
+        reverse(src, 0, dst, 0, src.length, blockSize, encrypter, getInitialState(blockSize));
+        return dst;
+    }
 
-    byte[] reverse(byte[] src, int blockSize, SymmetricEncrypter encrypter);
+    private static int checkBuffers(ByteBuffer src, ByteBuffer dst, int blockSize) {
+        int length = src.remaining();
+        if (length % blockSize != 0) {
+            throw new IllegalArgumentException("Data length must be a multiple of block size " + blockSize + ", but " + length + " found!");
+        }
+        if (dst.remaining() < length) {
+            throw new IllegalArgumentException("Output buffer has " + dst.remaining() + " bytes left, but " + length + " required!");
+        }
+        return length;
+    }
 
 }
@@ -0,0 +1,11 @@
+package ru.namerpro.cryptography.api.symmetric.networksfunctions.feistel;
+
+/**
+ * Feistel function able to process halves of many blocks at once. Halves of at most 8 bytes are passed
+ * as big-endian numbers, results must fit into the same amount of bytes.
+ */
+public interface BatchFeistelFunction extends FeistelFunction {
+
+    void runFeistelFunction(long[] halves, int count, byte[] roundKey, long[] results);
+
+}
@@ -4,9 +4,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
 
+import java.util.Arrays;
+
 @RequiredArgsConstructor
 public class SymmetricRSA implements SymmetricEncrypter {
 
+    private static final int BLOCK_SIZE = 32;
+
     private final RSA rsa;
     private final RSA.RSAKeyGenerator.PublicKey publicKey;
     private final RSA.RSAKeyGenerator.PrivateKey privateKey;
@@ -25,4 +29,38 @@ public class SymmetricRSA implements SymmetricEncrypter {
         return rsa.decrypt(rsaBlock, privateKey).get();
     }
 
+    @Override
+    public int getBlockSize() {
+        return BLOCK_SIZE;
+    }
+
+    @Override
+    public void encryptBlock(byte[] src, int srcOff, byte[] dst, int dstOff) {
+        putBlock(encrypt(Arrays.copyOfRange(src, srcOff, srcOff + BLOCK_SIZE)), dst, dstOff);
+    }
+
+    @Override
+    public void decryptBlock(byte[] src, int srcOff, byte[] dst, int dstOff) {
+        // leading zero keeps a block with the highest bit set from being read as a negative number
+        byte[] block = new byte[BLOCK_SIZE + 1];
+        System.arraycopy(src, srcOff, block, 1, BLOCK_SIZE);
+        putBlock(decrypt(block), dst, dstOff);
+    }
+
+    /**
+     * Writes big-endian number out as a block of exactly BLOCK_SIZE bytes, restoring leading zeros.
+     */
+    private static void putBlock(byte[] out, byte[] dst, int dstOff) {
+        int start = 0;
+        while (out.length - start > BLOCK_SIZE && out[start] == 0) {
+            ++start;
+        }
+        int length = out.length - start;
+        if (length > BLOCK_SIZE) {
+            throw new IllegalArgumentException("RSA result of " + length + " bytes does not fit into block of " + BLOCK_SIZE + " bytes, modulus is too large!");
+        }
+        Arrays.fill(dst, dstOff, dstOff + BLOCK_SIZE - length, (byte) 0);
+        System.arraycopy(out, start, dst, dstOff + BLOCK_SIZE - length, length);
+    }
+
 }
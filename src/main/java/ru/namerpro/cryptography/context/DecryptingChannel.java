@@ -0,0 +1,132 @@
+package ru.namerpro.cryptography.context;
+
+import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
+import ru.namerpro.cryptography.api.symmetric.modes.SeekableMode;
+import ru.namerpro.cryptography.api.symmetric.modes.SymmetricPaddingMode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Read-only view of the plaintext of a file encrypted in a {@link SeekableMode}. Every read decrypts only
+ * the blocks covering the requested bytes, so any range of a large file can be served without touching the rest.
+ * Size of the plaintext is found out once by decrypting the last block when the channel is opened.
+ */
+class DecryptingChannel implements SeekableByteChannel {
+
+    private static final int READ_CHUNK_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final SeekableMode mode;
+    private final SymmetricEncrypter encrypter;
+    private final int blockSize;
+    private final long size;
+    private final byte[] cipher;
+    private final byte[] plain;
+    private long position;
+
+    DecryptingChannel(FileChannel channel, SeekableMode mode, SymmetricPaddingMode padding, SymmetricEncrypter encrypter) throws IOException {
+        this.channel = channel;
+        this.mode = mode;
+        this.encrypter = encrypter;
+        this.blockSize = encrypter.getBlockSize();
+        this.cipher = new byte[READ_CHUNK_SIZE + 2 * blockSize];
+        this.plain = new byte[cipher.length];
+
+        long encryptedSize = channel.size();
+        if (encryptedSize % blockSize != 0) {
+            throw new IllegalArgumentException("Encrypted data length must be a multiple of block size " + blockSize + ", but " + encryptedSize + " found!");
+        }
+        if (encryptedSize == 0) {
+            this.size = 0;
+            return;
+        }
+        long lastBlockIndex = encryptedSize / blockSize - 1;
+        decryptBlocks(lastBlockIndex, blockSize);
+        byte[] last = new byte[blockSize];
+        System.arraycopy(plain, 0, last, 0, blockSize);
+        this.size = lastBlockIndex * blockSize + padding.remove(last, blockSize).length;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= size) {
+            return -1;
+        }
+        int length = (int) Math.min(Math.min(dst.remaining(), size - position), READ_CHUNK_SIZE);
+        if (length == 0) {
+            return 0;
+        }
+        long firstBlockIndex = position / blockSize;
+        long endBlockIndex = (position + length + blockSize - 1) / blockSize;
+        decryptBlocks(firstBlockIndex, (int) (endBlockIndex - firstBlockIndex) * blockSize);
+        dst.put(plain, (int) (position - firstBlockIndex * blockSize), length);
+        position += length;
+        return length;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Position must not be negative, but " + newPosition + " found!");
+        }
+        this.position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void decryptBlocks(long firstBlockIndex, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(cipher, 0, length);
+        long offset = firstBlockIndex * blockSize;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of encrypted data!");
+            }
+        }
+        mode.reverse(cipher, 0, plain, 0, length, blockSize, encrypter, mode.getStateAt(firstBlockIndex, blockSize));
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!channel.isOpen()) {
+            throw new ClosedChannelException();
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package ru.namerpro.cryptography.context;
+
+import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
+import ru.namerpro.cryptography.api.symmetric.modes.ChainingState;
+import ru.namerpro.cryptography.api.symmetric.modes.SymmetricEncryptMode;
+import ru.namerpro.cryptography.api.symmetric.modes.SymmetricPaddingMode;
+import ru.namerpro.cryptography.mode.impl.OFB;
+
+import java.util.Arrays;
+
+/**
+ * Encryption or decryption of one message fed in portions, with semantics of {@link javax.crypto.Cipher#update}
+ * and {@link javax.crypto.Cipher#doFinal}. Whole blocks are processed as soon as they arrive, a partial block is kept
+ * until the next call, and padding is handled by doFinal. Decryption also keeps back the last whole block, since
+ * it may contain padding. After doFinal the cipher is ready for the next message. Not thread-safe.
+ * Input and output regions must not overlap.
+ */
+public class IncrementalCipher {
+
+    private final SymmetricEncryptMode mode;
+    private final SymmetricPaddingMode padding;
+    private final SymmetricEncrypter encrypter;
+    private final int blockSize;
+    private final boolean isEncrypt;
+    private final byte[] pending;
+    private int pendingLength;
+    private ChainingState state;
+
+    IncrementalCipher(SymmetricEncryptMode mode, SymmetricPaddingMode padding, SymmetricEncrypter encrypter, boolean isEncrypt) {
+        this.mode = mode;
+        this.padding = padding;
+        this.encrypter = encrypter;
+        this.blockSize = encrypter.getBlockSize();
+        this.isEncrypt = isEncrypt;
+        this.pending = new byte[blockSize];
+        this.state = newState();
+    }
+
+    /**
+     * @return amount of bytes the next update of inputLength bytes writes
+     */
+    public int getUpdateOutputSize(int inputLength) {
+        int available = pendingLength + inputLength;
+        if (isEncrypt) {
+            return available - available % blockSize;
+        }
+        return available == 0 ? 0 : (available - 1) / blockSize * blockSize;
+    }
+
+    public byte[] update(byte[] in, int inOff, int inLength) {
+        byte[] out = new byte[getUpdateOutputSize(inLength)];
+        update(in, inOff, inLength, out, 0);
+        return out;
+    }
+
+    /**
+     * @return amount of bytes written to out
+     */
+    public int update(byte[] in, int inOff, int inLength, byte[] out, int outOff) {
+        int toProcess = getUpdateOutputSize(inLength);
+        if (out.length - outOff < toProcess) {
+            throw new IllegalArgumentException("Output buffer has " + (out.length - outOff) + " bytes left, but " + toProcess + " required!");
+        }
+        int written = 0;
+        if (toProcess > 0 && pendingLength > 0) {
+            int taken = blockSize - pendingLength;
+            System.arraycopy(in, inOff, pending, pendingLength, taken);
+            run(pending, 0, out, outOff, blockSize);
+            inOff += taken;
+            inLength -= taken;
+            pendingLength = 0;
+            written = blockSize;
+        }
+        run(in, inOff, out, outOff + written, toProcess - written);
+        int rest = inLength - (toProcess - written);
+        System.arraycopy(in, inOff + toProcess - written, pending, pendingLength, rest);
+        pendingLength += rest;
+        return toProcess;
+    }
+
+    public byte[] doFinal(byte[] in, int inOff, int inLength) {
+        byte[] head = update(in, inOff, inLength);
+        byte[] tail = finish();
+        byte[] out = Arrays.copyOf(head, head.length + tail.length);
+        System.arraycopy(tail, 0, out, head.length, tail.length);
+        return out;
+    }
+
+    /**
+     * @return amount of bytes written to out
+     */
+    public int doFinal(byte[] in, int inOff, int inLength, byte[] out, int outOff) {
+        int written = update(in, inOff, inLength, out, outOff);
+        byte[] tail = finish();
+        if (out.length - outOff - written < tail.length) {
+            throw new IllegalArgumentException("Output buffer has " + (out.length - outOff - written) + " bytes left, but " + tail.length + " required!");
+        }
+        System.arraycopy(tail, 0, out, outOff + written, tail.length);
+        return written + tail.length;
+    }
+
+    /**
+     * Processes the kept bytes together with padding and resets the cipher.
+     */
+    private byte[] finish() {
+        try {
+            byte[] tail;
+            if (isEncrypt) {
+                byte[] padded = padding.add(Arrays.copyOf(pending, pendingLength), blockSize);
+                tail = new byte[padded.length];
+                mode.apply(padded, 0, tail, 0, padded.length, blockSize, encrypter, state);
+            } else if (pendingLength == 0) {
+                tail = new byte[0];
+            } else if (pendingLength != blockSize) {
+                throw new IllegalArgumentException("Encrypted data length must be a multiple of block size " + blockSize + "!");
+            } else {
+                byte[] last = new byte[blockSize];
+                mode.reverse(pending, 0, last, 0, blockSize, blockSize, encrypter, state);
+                tail = padding.remove(last, blockSize);
+            }
+            return tail;
+        } finally {
+            Arrays.fill(pending, (byte) 0);
+            pendingLength = 0;
+            state = newState();
+        }
+    }
+
+    /**
+     * OFB may generate keystream of the message ahead, which only pays off for messages fed over time like here.
+     */
+    private ChainingState newState() {
+        return mode instanceof OFB ofb ? ofb.prepare(blockSize) : mode.getInitialState(blockSize);
+    }
+
+    private void run(byte[] src, int srcOff, byte[] dst, int dstOff, int length) {
+        if (isEncrypt) {
+            mode.apply(src, srcOff, dst, dstOff, length, blockSize, encrypter, state);
+        } else {
+            mode.reverse(src, srcOff, dst, dstOff, length, blockSize, encrypter, state);
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package ru.namerpro.cryptography.context;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executors for I/O-bound orchestration of file jobs, which spends most of its time blocked on the file system
+ * and therefore must not run on a compute pool.
+ */
+public class IoExecutors {
+
+    /**
+     * Upper bound of platform threads used when virtual threads are unavailable.
+     */
+    public static final int MAX_PLATFORM_THREADS = 256;
+
+    private IoExecutors() {
+    }
+
+    /**
+     * Shared executor for file jobs. On Java 21+ it starts a virtual thread per task, so tasks never wait for a free
+     * thread. On older runtimes it is a pool of at most {@link #MAX_PLATFORM_THREADS} daemon platform threads, idle
+     * ones expiring after a minute, and further tasks wait in its queue.
+     */
+    public static ExecutorService threadPerTask() {
+        return ThreadPerTask.EXECUTOR;
+    }
+
+    public static boolean isVirtual() {
+        return ThreadPerTask.IS_VIRTUAL;
+    }
+
+    private static final class ThreadPerTask {
+
+        private static final ExecutorService VIRTUAL = newVirtualThreadPerTaskExecutor();
+        private static final boolean IS_VIRTUAL = VIRTUAL != null;
+        private static final ExecutorService EXECUTOR = IS_VIRTUAL ? VIRTUAL : newBoundedPlatformExecutor();
+
+        private static ExecutorService newBoundedPlatformExecutor() {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    MAX_PLATFORM_THREADS, MAX_PLATFORM_THREADS,
+                    1, TimeUnit.MINUTES,
+                    new LinkedBlockingQueue<>(),
+                    task -> {
+                        Thread thread = new Thread(task, "crypto-io");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+            );
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+
+        private static ExecutorService newVirtualThreadPerTaskExecutor() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException error) {
+                return null;
+            }
+        }
+
+    }
+
+}
@@ -1,10 +1,14 @@
 package ru.namerpro.cryptography.context;
 
+import ru.namerpro.cryptography.api.symmetric.modes.AuthenticatedMode;
+import ru.namerpro.cryptography.api.symmetric.modes.ChainingState;
+import ru.namerpro.cryptography.api.symmetric.modes.SeekableMode;
 import ru.namerpro.cryptography.api.symmetric.modes.SymmetricEncryptMode;
 import ru.namerpro.cryptography.api.symmetric.modes.SymmetricPaddingMode;
 import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
 import ru.namerpro.cryptography.asymmetricencrypters.rsa.RSA;
 import ru.namerpro.cryptography.asymmetricencrypters.rsa.SymmetricRSA;
+import ru.namerpro.cryptography.context.cache.KeyScheduleCache;
 import ru.namerpro.cryptography.context.encrypter.Encrypter;
 import ru.namerpro.cryptography.mode.Mode;
 import ru.namerpro.cryptography.padding.Padding;
@@ -13,50 +17,141 @@ import ru.namerpro.cryptography.padding.impl.ISO10126;
 import ru.namerpro.cryptography.padding.impl.PKCS7;
 import ru.namerpro.cryptography.padding.impl.Zeros;
 import ru.namerpro.cryptography.encryptionstate.EncryptionState;
+import ru.namerpro.cryptography.metrics.MetricsSink;
 import ru.namerpro.cryptography.mode.impl.*;
 import ru.namerpro.cryptography.symmetricencrypters.deal.DEAL;
 import ru.namerpro.cryptography.symmetricencrypters.des.DES;
 import ru.namerpro.cryptography.symmetricencrypters.rijndael.Rijndael;
+import ru.namerpro.cryptography.utils.Pair;
+import ru.namerpro.cryptography.utils.Utility;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 public class SymmetricEncrypterContext implements AutoCloseable {
 
-    private final ExecutorService service = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    private static final int STREAM_CHUNK_SIZE = 1 << 20;
+    private static final long MAPPING_WINDOW_SIZE = 1 << 26;
+    private static final int MAPPED_RANGE_SIZE = 1 << 20;
+    private static final SecureRandom NONCES = new SecureRandom();
+    private final ExecutorService service;
     private final SymmetricEncryptMode mode;
     private final SymmetricPaddingMode padding;
     private final SymmetricEncrypter encrypter;
+    private final KeyScheduleCache.Lease lease;
     private final int blockSize;
+    private final Encrypter encrypterType;
+    private final Mode modeType;
+    private volatile MetricsSink metrics = MetricsSink.NOOP;
+    private volatile Executor fileExecutor = ForkJoinPool.commonPool();
+    private volatile boolean isMemoryMapped;
 
     public SymmetricEncrypterContext(Encrypter encrypter, byte[] key, Mode mode, Padding padding, byte[] iv, Object... options) {
-        switch (encrypter) {
-            case DES -> {
-                this.encrypter = new DES(key);
-                this.blockSize = 8;
+        this(null, encrypter, key, mode, padding, iv, options);
+    }
+
+    /**
+     * Takes the cipher from keyScheduleCache (if not null), so contexts created for the same key skip key expansion.
+     * RSA is never cached.
+     */
+    public SymmetricEncrypterContext(KeyScheduleCache keyScheduleCache, Encrypter encrypter, byte[] key, Mode mode, Padding padding, byte[] iv, Object... options) {
+        this(null, keyScheduleCache, encrypter, key, mode, padding, iv, options);
+    }
+
+    /**
+     * Runs parallel modes on executor, or on {@link #getSharedExecutor()} if it is null. The executor is not shut down
+     * when the context is closed.
+     */
+    public SymmetricEncrypterContext(ExecutorService executor, KeyScheduleCache keyScheduleCache, Encrypter encrypter, byte[] key, Mode mode, Padding padding, byte[] iv, Object... options) {
+        this.service = executor == null ? getSharedExecutor() : executor;
+        if (keyScheduleCache == null || encrypter == Encrypter.RSA) {
+            this.lease = null;
+            this.encrypter = createEncrypter(encrypter, key, options);
+        } else {
+            this.lease = keyScheduleCache.acquire(encrypter, key, options, () -> createEncrypter(encrypter, key, options));
+            this.encrypter = lease.getEncrypter();
+        }
+        this.blockSize = this.encrypter.getBlockSize();
+        this.encrypterType = encrypter;
+        this.modeType = mode;
+
+        try {
+            if (mode == Mode.GCM) {
+                if (iv != null) {
+                    throw new IllegalArgumentException("GCM takes a fresh random nonce for every message, so no initialization vector can be passed!");
+                }
+                this.mode = new GCM(service, this.blockSize);
+            } else if (iv == null) {
+                if (mode == Mode.ECB) {
+                    this.mode = new ECB(service);
+                } else {
+                    throw new IllegalArgumentException("No initialization vector passed, but it's required for '" + mode.name() + "' encrypt mode!");
+                }
+            } else {
+                switch (mode) {
+                    case CBC -> this.mode = new CBC(service, iv);
+                    case PCBC -> this.mode = new PCBC(service, iv);
+                    case OFB -> this.mode = new OFB(iv);
+                    case CFB -> this.mode = new CFB(service, iv);
+                    case CTR -> this.mode = new CTR(service, iv, this.blockSize);
+                    case RD -> this.mode = new RD(service, iv);
+                    default -> throw new IllegalArgumentException("byte[] IV can only be passed in pair with any of the following encrypt modes: CBC, PCBC, OFB, CFB, CTR, RD, - but '" + mode.name() + "' found!");
+                }
             }
-            case DEAL -> {
-                this.encrypter = new DEAL(key);
-                this.blockSize = 16;
+
+            this.padding = switch (padding) {
+                case PKCS7 -> new PKCS7();
+                case ZEROS -> new Zeros();
+                case ISO_10126 -> new ISO10126();
+                case ANSI_X_923 -> new ANSIX923();
+            };
+        } catch (RuntimeException error) {
+            if (lease != null) {
+                lease.close();
             }
+            throw error;
+        }
+    }
+
+    /**
+     * Work-stealing pool with one thread per processor, used by all contexts created without their own executor.
+     */
+    public static ForkJoinPool getSharedExecutor() {
+        return SharedExecutor.POOL;
+    }
+
+    private static SymmetricEncrypter createEncrypter(Encrypter encrypter, byte[] key, Object[] options) {
+        return switch (encrypter) {
+            case DES -> new DES(key);
+            case DEAL -> new DEAL(key);
             case RIJNDAEL -> {
-                if (options.length != 2 || !(options[0] instanceof Rijndael.RijndaelBlockSize rijndaelBlockSize)
-                        || !(options[1] instanceof Integer modulo)) {
-                    throw new IllegalArgumentException("Rijndael mode requires these constructor parameters: Encrypter encrypter, byte[] key, Mode mode, Padding padding, byte[] iv, RijndaelBlockSize rijndaelBlockSize, int modulo.");
+                if ((options.length != 2 && options.length != 3) || !(options[0] instanceof Rijndael.RijndaelBlockSize rijndaelBlockSize)
+                        || !(options[1] instanceof Integer modulo)
+                            || (options.length == 3 && !(options[2] instanceof Rijndael.RijndaelEngine))) {
+                    throw new IllegalArgumentException("Rijndael mode requires these constructor parameters: Encrypter encrypter, byte[] key, Mode mode, Padding padding, byte[] iv, RijndaelBlockSize rijndaelBlockSize, int modulo, [RijndaelEngine engine].");
                 }
-                this.encrypter = new Rijndael(rijndaelBlockSize, key, modulo.byteValue());
-                this.blockSize = switch (rijndaelBlockSize) {
-                    case SZ_128_BITS -> 16;
-                    case SZ_192_BITS -> 24;
-                    case SZ_256_BITS -> 32;
-                };
+                var engine = options.length == 3 ? (Rijndael.RijndaelEngine) options[2] : Rijndael.RijndaelEngine.T_TABLES;
+                yield new Rijndael(rijndaelBlockSize, key, modulo.byteValue(), engine);
             }
             case RSA -> {
                 if (options.length != 3 || !(options[0] instanceof RSA rsa)
@@ -64,90 +159,815 @@ public class SymmetricEncrypterContext implements AutoCloseable {
                             || !(options[2] instanceof RSA.RSAKeyGenerator.PrivateKey privateKey)) {
                     throw new IllegalArgumentException("Three constructor parameters are required in order to use RSA in symmetric mode: RSA sra, PublicKey publicKey, PrivateKey privateKey, - passed in provided order!");
                 }
-                this.encrypter = new SymmetricRSA(rsa, publicKey, privateKey);
-                this.blockSize = 32;
+                yield new SymmetricRSA(rsa, publicKey, privateKey);
             }
             default -> throw new IllegalArgumentException("Unexpected error occurred while trying to set encrypter!");
-        }
-
-        if (iv == null) {
-            if (mode == Mode.ECB) {
-                this.mode = new ECB(service);
-            } else {
-                throw new IllegalArgumentException("No initialization vector passed, but it's required for '" + mode.name() + "' encrypt mode!");
-            }
-        } else {
-            switch (mode) {
-                case CBC -> this.mode = new CBC(service, iv);
-                case PCBC -> this.mode = new PCBC(service, iv);
-                case OFB -> this.mode = new OFB(iv);
-                case CFB -> this.mode = new CFB(service, iv);
-                case CTR -> this.mode = new CTR(service, iv, this.blockSize);
-                case RD -> this.mode = new RD(service, iv);
-                default -> throw new IllegalArgumentException("byte[] IV can only be passed in pair with any of the following encrypt modes: CBC, PCBC, OFB, CFB, CTR, RD, - but '" + mode.name() + "' found!");
-            }
-        }
-
-        this.padding = switch (padding) {
-            case PKCS7 -> new PKCS7();
-            case ZEROS -> new Zeros();
-            case ISO_10126 -> new ISO10126();
-            case ANSI_X_923 -> new ANSIX923();
         };
     }
 
+    /**
+     * Enables instrumentation of this context. {@link MetricsSink#NOOP} (or null) disables it.
+     */
+    public void setMetrics(MetricsSink metrics) {
+        this.metrics = metrics == null ? MetricsSink.NOOP : metrics;
+    }
+
+    /**
+     * Sets executor running file jobs, which mostly wait for the file system while their cipher work is done
+     * on the context's executor. {@link IoExecutors#threadPerTask()} keeps any amount of file jobs in flight on Java 21+
+     * virtual threads, and at most {@link IoExecutors#MAX_PLATFORM_THREADS} of them on older runtimes. Null restores the default, {@link ForkJoinPool#commonPool()}.
+     */
+    public void setFileExecutor(Executor fileExecutor) {
+        this.fileExecutor = fileExecutor == null ? ForkJoinPool.commonPool() : fileExecutor;
+    }
+
+    /**
+     * Makes file operations of ECB, CTR and RD map source and destination into memory and process their regions
+     * in parallel directly between the mappings, leaving the I/O to the page cache. Other modes keep streaming.
+     */
+    public void setMemoryMapped(boolean isMemoryMapped) {
+        this.isMemoryMapped = isMemoryMapped;
+    }
+
+    /**
+     * @return cipher encrypting a message fed in portions with this context's cipher, mode and padding
+     */
+    public IncrementalCipher newIncrementalEncrypter() {
+        checkNotAuthenticated();
+        return new IncrementalCipher(mode, padding, encrypter, true);
+    }
+
+    /**
+     * @return cipher decrypting a message fed in portions with this context's cipher, mode and padding
+     */
+    public IncrementalCipher newIncrementalDecrypter() {
+        checkNotAuthenticated();
+        return new IncrementalCipher(mode, padding, encrypter, false);
+    }
+
     public CompletableFuture<byte[]> encrypt(byte[] src) {
         return CompletableFuture.supplyAsync(() -> {
+            MetricsSink sink = metrics;
+            long start = now(sink);
             byte[] paddedSrc = padding.add(src, blockSize);
-            return mode.apply(paddedSrc, blockSize, encrypter);
+            long padded = now(sink);
+            byte[] nonce = newNonce();
+            ChainingState state = getInitialState(nonce);
+            byte[] result = new byte[nonce.length + paddedSrc.length + getTagSize()];
+            System.arraycopy(nonce, 0, result, 0, nonce.length);
+            mode.apply(paddedSrc, 0, result, nonce.length, paddedSrc.length, blockSize, encrypter, state);
+            byte[] tag = getTag(state);
+            System.arraycopy(tag, 0, result, nonce.length + paddedSrc.length, tag.length);
+            if (sink.isEnabled()) {
+                long end = System.nanoTime();
+                sink.recordStage(MetricsSink.Stage.PADDING, padded - start);
+                sink.recordStage(MetricsSink.Stage.MODE, end - padded);
+                recordCompleted(sink, MetricsSink.Operation.ENCRYPT, result.length, end - start);
+            }
+            return result;
         });
     }
 
-    public CompletableFuture<EncryptionState> encrypt(String pathToSrc, String pathToDest) {
+    /**
+     * Encrypts and pads all remaining bytes of src into dst, like {@link javax.crypto.Cipher#doFinal(ByteBuffer, ByteBuffer)}:
+     * on completion positions of both are advanced by the amounts read and written. Whole blocks are processed in place,
+     * so direct buffers are never copied to the heap, except for the last, padded block. An authenticated mode
+     * puts a fresh nonce before the data and the tag after it.
+     * @return amount of bytes written to dst
+     */
+    public CompletableFuture<Integer> encrypt(ByteBuffer src, ByteBuffer dst) {
         return CompletableFuture.supplyAsync(() -> {
-            try {
-                byte[] src = Files.readAllBytes(Path.of(pathToSrc));
-                var future = encrypt(src);
-                OutputStream os = new FileOutputStream(pathToDest);
-                os.write(future.get());
-                os.flush();
-                os.close();
-                return new EncryptionState.Success();
-            } catch (IOException | ExecutionException | InterruptedException error) {
-                Thread.currentThread().interrupt();
-                return new EncryptionState.Error(error);
+            MetricsSink sink = metrics;
+            long start = now(sink);
+            int length = src.remaining();
+            int bodyLength = length - length % blockSize;
+            byte[] tail = new byte[length - bodyLength];
+            src.get(src.position() + bodyLength, tail);
+            tail = padding.add(tail, blockSize);
+            byte[] nonce = newNonce();
+            int overhead = nonce.length + getTagSize();
+            if (dst.remaining() < bodyLength + tail.length + overhead) {
+                throw new IllegalArgumentException("Output buffer has " + dst.remaining() + " bytes left, but " + (bodyLength + tail.length + overhead) + " required!");
+            }
+            long padded = now(sink);
+            ChainingState state = getInitialState(nonce);
+            dst.put(nonce);
+            mode.apply(src.slice(src.position(), bodyLength), dst, blockSize, encrypter, state);
+            mode.apply(ByteBuffer.wrap(tail), dst, blockSize, encrypter, state);
+            dst.put(getTag(state));
+            src.position(src.position() + length);
+            if (sink.isEnabled()) {
+                long end = System.nanoTime();
+                sink.recordStage(MetricsSink.Stage.PADDING, padded - start);
+                sink.recordStage(MetricsSink.Stage.MODE, end - padded);
+                recordCompleted(sink, MetricsSink.Operation.ENCRYPT, bodyLength + tail.length, end - start);
             }
+            return bodyLength + tail.length + overhead;
         });
     }
 
+    public CompletableFuture<EncryptionState> encrypt(String pathToSrc, String pathToDest) {
+        return CompletableFuture.supplyAsync(() -> encryptFile(pathToSrc, pathToDest, new StreamBuffers()), fileExecutor);
+    }
+
+    /**
+     * Encrypts every (source, destination) pair of files. See {@link #encrypt(Stream, int)}.
+     */
+    public CompletableFuture<List<EncryptionState>> encrypt(List<Pair<String, String>> files, int parallelism) {
+        return encrypt(files.stream(), parallelism);
+    }
+
+    /**
+     * Encrypts every (source, destination) pair of files, with at most parallelism files in flight. Each file is
+     * streamed in chunks: the context's executor encrypts one while the worker writes the previous one and reads
+     * the next. Files are taken from the stream only when a worker is free, and every worker reuses its buffers,
+     * so memory stays bounded regardless of the amount of files. A file failing in any way gets an
+     * {@link EncryptionState.Error} without stopping the others.
+     * @return states of the files in the order of the stream, once all of them are done
+     */
+    public CompletableFuture<List<EncryptionState>> encrypt(Stream<Pair<String, String>> files, int parallelism) {
+        return runBatch(files, parallelism, this::encryptFile);
+    }
+
     public CompletableFuture<byte[]> decrypt(byte[] src) {
         return CompletableFuture.supplyAsync(() -> {
-            byte[] paddedSrc = mode.reverse(src, blockSize, encrypter);
-            return padding.remove(paddedSrc, blockSize);
+            MetricsSink sink = metrics;
+            long start = now(sink);
+            int nonceSize = getNonceSize();
+            int bodyLength = src.length - nonceSize - getTagSize();
+            if (bodyLength < 0) {
+                throw new IllegalArgumentException("Encrypted data of " + src.length + " bytes is shorter than nonce and authentication tag!");
+            }
+            if (bodyLength % blockSize != 0) {
+                throw new IllegalArgumentException("Encrypted data length must be a multiple of block size " + blockSize + ", but " + bodyLength + " found!");
+            }
+            ChainingState state = getInitialState(Arrays.copyOf(src, nonceSize));
+            byte[] paddedSrc = new byte[bodyLength];
+            mode.reverse(src, nonceSize, paddedSrc, 0, bodyLength, blockSize, encrypter, state);
+            verifyTag(state, Arrays.copyOfRange(src, nonceSize + bodyLength, src.length));
+            long reversed = now(sink);
+            byte[] result = padding.remove(paddedSrc, blockSize);
+            if (sink.isEnabled()) {
+                long end = System.nanoTime();
+                sink.recordStage(MetricsSink.Stage.MODE, reversed - start);
+                sink.recordStage(MetricsSink.Stage.PADDING, end - reversed);
+                recordCompleted(sink, MetricsSink.Operation.DECRYPT, src.length, end - start);
+            }
+            return result;
         });
     }
 
-    public CompletableFuture<EncryptionState> decrypt(String pathToSrc, String pathToDest) {
+    /**
+     * Opens file encrypted by this context for random access to its plaintext: reads at any position decrypt only
+     * the blocks they cover. Available for ECB, CTR and RD.
+     */
+    public SeekableByteChannel openDecryptingChannel(String pathToSrc) throws IOException {
+        if (!(mode instanceof SeekableMode seekableMode)) {
+            throw new IllegalArgumentException("Random access decryption requires any of the following encrypt modes: ECB, CTR, RD, - but '" + modeType.name() + "' found!");
+        }
+        FileChannel channel = FileChannel.open(Path.of(pathToSrc), StandardOpenOption.READ);
+        try {
+            return new DecryptingChannel(channel, seekableMode, padding, encrypter);
+        } catch (IOException | RuntimeException error) {
+            channel.close();
+            throw error;
+        }
+    }
+
+    /**
+     * Decrypts all remaining bytes of src into dst and removes padding. See {@link #encrypt(ByteBuffer, ByteBuffer)}.
+     * If the tag of an authenticated mode does not match, positions are kept and the decrypted region of dst is zeroed.
+     * @return amount of bytes written to dst
+     */
+    public CompletableFuture<Integer> decrypt(ByteBuffer src, ByteBuffer dst) {
         return CompletableFuture.supplyAsync(() -> {
+            MetricsSink sink = metrics;
+            long start = now(sink);
+            int tagSize = getTagSize();
+            byte[] nonce = new byte[getNonceSize()];
+            int length = src.remaining() - nonce.length - tagSize;
+            if (length < 0) {
+                throw new IllegalArgumentException("Encrypted data of " + src.remaining() + " bytes is shorter than nonce and authentication tag!");
+            }
+            if (length % blockSize != 0) {
+                throw new IllegalArgumentException("Encrypted data length must be a multiple of block size " + blockSize + ", but " + length + " found!");
+            }
+            src.get(src.position(), nonce);
+            int bodyStart = src.position() + nonce.length;
+            ChainingState state = getInitialState(nonce);
+            byte[] tag = new byte[tagSize];
+            src.get(bodyStart + length, tag);
+            if (length == 0) {
+                verifyTag(state, tag);
+                src.position(bodyStart + tagSize);
+                return 0;
+            }
+            int bodyLength = length - blockSize;
+            ByteBuffer body = dst.slice(dst.position(), Math.min(bodyLength, dst.remaining()));
+            mode.reverse(src.slice(bodyStart, bodyLength), body, blockSize, encrypter, state);
+            byte[] last = new byte[blockSize];
+            mode.reverse(src.slice(bodyStart + bodyLength, blockSize), ByteBuffer.wrap(last), blockSize, encrypter, state);
             try {
-                byte[] src = Files.readAllBytes(Path.of(pathToSrc));
-                var future = decrypt(src);
-                OutputStream os = new FileOutputStream(pathToDest);
-                os.write(future.get());
-                os.flush();
-                os.close();
-                return new EncryptionState.Success();
-            } catch (IOException | ExecutionException | InterruptedException error) {
-                Thread.currentThread().interrupt();
-                return new EncryptionState.Error(error);
+                verifyTag(state, tag);
+            } catch (IllegalArgumentException error) {
+                for (int i = 0; i < body.limit(); ++i) {
+                    body.put(i, (byte) 0);
+                }
+                throw error;
+            }
+            long reversed = now(sink);
+            byte[] tail = padding.remove(last, blockSize);
+            if (dst.remaining() < bodyLength + tail.length) {
+                throw new IllegalArgumentException("Output buffer has " + dst.remaining() + " bytes left, but " + (bodyLength + tail.length) + " required!");
+            }
+            dst.put(dst.position() + bodyLength, tail);
+            src.position(bodyStart + length + tagSize);
+            dst.position(dst.position() + bodyLength + tail.length);
+            if (sink.isEnabled()) {
+                long end = System.nanoTime();
+                sink.recordStage(MetricsSink.Stage.MODE, reversed - start);
+                sink.recordStage(MetricsSink.Stage.PADDING, end - reversed);
+                recordCompleted(sink, MetricsSink.Operation.DECRYPT, length, end - start);
+            }
+            return bodyLength + tail.length;
+        });
+    }
+
+    public CompletableFuture<EncryptionState> decrypt(String pathToSrc, String pathToDest) {
+        return CompletableFuture.supplyAsync(() -> decryptFile(pathToSrc, pathToDest, new StreamBuffers()), fileExecutor);
+    }
+
+    /**
+     * Decrypts every (source, destination) pair of files. See {@link #encrypt(Stream, int)}.
+     */
+    public CompletableFuture<List<EncryptionState>> decrypt(List<Pair<String, String>> files, int parallelism) {
+        return decrypt(files.stream(), parallelism);
+    }
+
+    /**
+     * Decrypts every (source, destination) pair of files. See {@link #encrypt(Stream, int)}.
+     */
+    public CompletableFuture<List<EncryptionState>> decrypt(Stream<Pair<String, String>> files, int parallelism) {
+        return runBatch(files, parallelism, this::decryptFile);
+    }
+
+    private EncryptionState encryptFile(String pathToSrc, String pathToDest, StreamBuffers buffers) {
+        MetricsSink sink = metrics;
+        long start = now(sink);
+        try (FileChannel in = FileChannel.open(Path.of(pathToSrc), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(Path.of(pathToDest), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long processed = isMemoryMapped && mode instanceof SeekableMode seekableMode && mode instanceof ParallelMode parallelMode
+                    ? encryptMapped(in, out, sink, seekableMode, parallelMode)
+                    : encrypt(in, out, sink, buffers);
+            if (sink.isEnabled()) {
+                recordCompleted(sink, MetricsSink.Operation.ENCRYPT, processed, System.nanoTime() - start);
+            }
+            return new EncryptionState.Success();
+        } catch (IOException | IllegalArgumentException error) {
+            return new EncryptionState.Error(error);
+        }
+    }
+
+    private EncryptionState decryptFile(String pathToSrc, String pathToDest, StreamBuffers buffers) {
+        MetricsSink sink = metrics;
+        long start = now(sink);
+        try (FileChannel in = FileChannel.open(Path.of(pathToSrc), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(Path.of(pathToDest), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long processed = isMemoryMapped && mode instanceof SeekableMode seekableMode && mode instanceof ParallelMode parallelMode
+                    ? decryptMapped(in, out, sink, seekableMode, parallelMode)
+                    : decrypt(in, out, sink, buffers);
+            if (sink.isEnabled()) {
+                recordCompleted(sink, MetricsSink.Operation.DECRYPT, processed, System.nanoTime() - start);
+            }
+            return new EncryptionState.Success();
+        } catch (IOException | IllegalArgumentException error) {
+            return new EncryptionState.Error(error);
+        }
+    }
+
+    /**
+     * Starts parallelism workers on the file executor. Each of them takes the next file from the stream as soon as
+     * it is done with the previous one, so small files are processed back to back by the same worker.
+     */
+    private CompletableFuture<List<EncryptionState>> runBatch(Stream<Pair<String, String>> files, int parallelism, FileJob job) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive, but " + parallelism + " found!");
+        }
+        Iterator<Pair<String, String>> iterator = files.iterator();
+        List<EncryptionState> states = new ArrayList<>();
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[parallelism];
+        for (int i = 0; i < parallelism; ++i) {
+            workers[i] = CompletableFuture.runAsync(() -> {
+                StreamBuffers buffers = new StreamBuffers();
+                while (true) {
+                    Pair<String, String> file;
+                    int index;
+                    synchronized (states) {
+                        if (!iterator.hasNext()) {
+                            return;
+                        }
+                        file = iterator.next();
+                        index = states.size();
+                        states.add(null);
+                    }
+                    EncryptionState state;
+                    try {
+                        state = job.run(file.getKey(), file.getValue(), buffers);
+                    } catch (RuntimeException error) {
+                        state = new EncryptionState.Error(error);
+                    }
+                    synchronized (states) {
+                        states.set(index, state);
+                    }
+                }
+            }, fileExecutor);
+        }
+        return CompletableFuture.allOf(workers).thenApply(ignored -> {
+            synchronized (states) {
+                return List.copyOf(states);
             }
         });
     }
 
+    /**
+     * Reads, encrypts and writes the file as a pipeline: the mode works on one chunk on the context's executor,
+     * while this thread writes the previous chunk and reads the next one.
+     * @return amount of bytes that went through the mode
+     */
+    private long encrypt(FileChannel in, FileChannel out, MetricsSink sink, StreamBuffers buffers) throws IOException {
+        int chunkSize = getStreamChunkSize();
+        byte[] nonce = newNonce();
+        ChainingState state = getInitialState(nonce);
+        writeFully(out, nonce, nonce.length);
+        long remaining = in.size();
+        long processed = 0;
+        long ioNanos = 0;
+        long paddingNanos = 0;
+        long modeNanos = 0;
+        int current = 0;
+        int pendingLength = 0;
+        long start = now(sink);
+        int toRead = (int) Math.min(chunkSize, remaining);
+        int read = readFully(in, buffers.input(current, toRead), toRead);
+        ioNanos += now(sink) - start;
+        while (true) {
+            remaining -= read;
+            boolean isFinal = read < chunkSize || remaining == 0;
+            byte[] source = buffers.input[current];
+            int length = read;
+            if (isFinal) {
+                long beforePadding = now(sink);
+                source = padding.add(Arrays.copyOf(source, read), blockSize);
+                length = source.length;
+                paddingNanos += now(sink) - beforePadding;
+            }
+            ChunkTask task = startChunk(pendingLength > 0 || !isFinal, source, buffers.output(current, length), length, true, state);
+            long beforeIo = now(sink);
+            writeFully(out, buffers.output[1 - current], pendingLength);
+            if (!isFinal) {
+                toRead = (int) Math.min(chunkSize, remaining);
+                read = readFully(in, buffers.input(1 - current, toRead), toRead);
+            }
+            ioNanos += now(sink) - beforeIo;
+            modeNanos += task.join();
+            processed += length;
+            pendingLength = length;
+            if (isFinal) {
+                break;
+            }
+            current = 1 - current;
+        }
+        long beforeWrite = now(sink);
+        writeFully(out, buffers.output[current], pendingLength);
+        byte[] tag = getTag(state);
+        writeFully(out, tag, tag.length);
+        ioNanos += now(sink) - beforeWrite;
+        recordStages(sink, ioNanos, paddingNanos, modeNanos);
+        return processed;
+    }
+
+    /**
+     * Pipelined like {@link #encrypt(FileChannel, FileChannel, MetricsSink, StreamBuffers)}. The tag of an
+     * authenticated mode is verified before padding of the last chunk is removed, and out is truncated if anything
+     * fails, so no unauthenticated plaintext is left behind.
+     * @return amount of bytes that went through the mode
+     */
+    private long decrypt(FileChannel in, FileChannel out, MetricsSink sink, StreamBuffers buffers) throws IOException {
+        int tagSize = getTagSize();
+        byte[] nonce = new byte[getNonceSize()];
+        long remaining = in.size() - nonce.length - tagSize;
+        if (remaining < 0) {
+            throw new IllegalArgumentException("Encrypted data of " + in.size() + " bytes is shorter than nonce and authentication tag!");
+        }
+        if (remaining % blockSize != 0) {
+            throw new IllegalArgumentException("Encrypted data length must be a multiple of block size " + blockSize + ", but " + remaining + " found!");
+        }
+        readChunk(in, nonce, nonce.length);
+        long processed = remaining;
+        int chunkSize = getStreamChunkSize();
+        ChainingState state = getInitialState(nonce);
+        long ioNanos = 0;
+        long paddingNanos = 0;
+        long modeNanos = 0;
+        try {
+            int current = 0;
+            int pendingLength = 0;
+            long start = now(sink);
+            int toRead = (int) Math.min(chunkSize, remaining);
+            int read = readChunk(in, buffers.input(current, toRead), toRead);
+            ioNanos += now(sink) - start;
+            if (read == 0) {
+                readAndVerifyTag(in, state, tagSize);
+            }
+            while (read > 0) {
+                remaining -= read;
+                ChunkTask task = startChunk(pendingLength > 0 || remaining > 0, buffers.input[current], buffers.output(current, read), read, false, state);
+                long beforeIo = now(sink);
+                writeFully(out, buffers.output[1 - current], pendingLength);
+                pendingLength = 0;
+                toRead = (int) Math.min(chunkSize, remaining);
+                int next = readChunk(in, buffers.input(1 - current, toRead), toRead);
+                ioNanos += now(sink) - beforeIo;
+                modeNanos += task.join();
+                if (remaining == 0) {
+                    readAndVerifyTag(in, state, tagSize);
+                    long beforePadding = now(sink);
+                    byte[] result = padding.remove(Arrays.copyOf(buffers.output[current], read), blockSize);
+                    paddingNanos += now(sink) - beforePadding;
+                    long beforeWrite = now(sink);
+                    writeFully(out, result, result.length);
+                    ioNanos += now(sink) - beforeWrite;
+                    break;
+                }
+                pendingLength = read;
+                read = next;
+                current = 1 - current;
+            }
+        } catch (IOException | RuntimeException error) {
+            if (tagSize > 0) {
+                out.truncate(0);
+            }
+            throw error;
+        }
+        recordStages(sink, ioNanos, paddingNanos, modeNanos);
+        return processed;
+    }
+
+    private void readAndVerifyTag(FileChannel in, ChainingState state, int tagSize) throws IOException {
+        byte[] tag = new byte[tagSize];
+        if (readFully(in, tag, tagSize) != tagSize) {
+            throw new IOException("Unexpected end of encrypted data!");
+        }
+        verifyTag(state, tag);
+    }
+
+    /**
+     * Starts running length bytes of source through the mode into target. Unless isAsync is set, or if the executor
+     * does not pick the chunk up before it is joined, the joining thread does the work itself.
+     */
+    private ChunkTask startChunk(boolean isAsync, byte[] source, byte[] target, int length, boolean isEncrypt, ChainingState state) {
+        ChunkTask task = new ChunkTask(() -> {
+            if (isEncrypt) {
+                mode.apply(source, 0, target, 0, length, blockSize, encrypter, state);
+            } else {
+                mode.reverse(source, 0, target, 0, length, blockSize, encrypter, state);
+            }
+        });
+        if (isAsync) {
+            try {
+                service.execute(task);
+            } catch (RejectedExecutionException ignored) {
+                // joining thread runs it
+            }
+        }
+        return task;
+    }
+
+    /**
+     * Encrypts all whole blocks between the mappings, then pads and encrypts the rest of the file.
+     * @return amount of bytes that went through the mode
+     */
+    private long encryptMapped(FileChannel in, FileChannel out, MetricsSink sink, SeekableMode seekableMode, ParallelMode parallelMode) throws IOException {
+        long size = in.size();
+        long bodySize = size - size % blockSize;
+        long start = now(sink);
+        byte[] tail = new byte[(int) (size - bodySize)];
+        readFully(in, bodySize, tail);
+        tail = padding.add(tail, blockSize);
+        long padded = now(sink);
+        transformMapped(in, out, bodySize, true, seekableMode, parallelMode);
+        byte[] encryptedTail = new byte[tail.length];
+        seekableMode.apply(tail, 0, encryptedTail, 0, tail.length, blockSize, encrypter, seekableMode.getStateAt(bodySize / blockSize, blockSize));
+        writeFully(out, bodySize, encryptedTail);
+        recordStages(sink, 0, padded - start, now(sink) - padded);
+        return bodySize + tail.length;
+    }
+
+    /**
+     * Decrypts all blocks but the last one between the mappings, then decrypts the last one and removes padding.
+     * @return amount of bytes that went through the mode
+     */
+    private long decryptMapped(FileChannel in, FileChannel out, MetricsSink sink, SeekableMode seekableMode, ParallelMode parallelMode) throws IOException {
+        long size = in.size();
+        if (size % blockSize != 0) {
+            throw new IllegalArgumentException("Encrypted data length must be a multiple of block size " + blockSize + ", but " + size + " found!");
+        }
+        if (size == 0) {
+            return 0;
+        }
+        long bodySize = size - blockSize;
+        long start = now(sink);
+        transformMapped(in, out, bodySize, false, seekableMode, parallelMode);
+        byte[] last = new byte[blockSize];
+        readFully(in, bodySize, last);
+        byte[] decryptedLast = new byte[blockSize];
+        seekableMode.reverse(last, 0, decryptedLast, 0, blockSize, blockSize, encrypter, seekableMode.getStateAt(bodySize / blockSize, blockSize));
+        long reversed = now(sink);
+        byte[] tail = padding.remove(decryptedLast, blockSize);
+        writeFully(out, bodySize, tail);
+        recordStages(sink, 0, now(sink) - reversed, reversed - start);
+        return size;
+    }
+
+    /**
+     * Runs the first length bytes of in through the mode into out window by window. Workers run their ranges
+     * of a window directly between the two mappings, so no data is copied to the heap. Both mappings of a window
+     * live only until its ranges are done: the output is forced to the file and both are unmapped before the next
+     * window is mapped, so at most one window of each file is mapped at a time.
+     */
+    private void transformMapped(FileChannel in, FileChannel out, long length, boolean isEncrypt, SeekableMode seekableMode, ParallelMode parallelMode) throws IOException {
+        long windowSize = MAPPING_WINDOW_SIZE / blockSize * blockSize;
+        int rangeSize = Math.max(Math.min(parallelMode.getChunkSize(), MAPPED_RANGE_SIZE) / blockSize, 1);
+        for (long position = 0; position < length; position += windowSize) {
+            int size = (int) Math.min(windowSize, length - position);
+            MappedByteBuffer src = in.map(FileChannel.MapMode.READ_ONLY, position, size);
+            MappedByteBuffer dst = out.map(FileChannel.MapMode.READ_WRITE, position, size);
+            long firstBlockIndex = position / blockSize;
+            Utility.runInParallel(service, size / blockSize, rangeSize, parallelMode.getParallelism(), (from, to) -> {
+                int index = from * blockSize;
+                int rangeLength = (to - from) * blockSize;
+                ChainingState state = seekableMode.getStateAt(firstBlockIndex + from, blockSize);
+                if (isEncrypt) {
+                    seekableMode.apply(src, index, dst, index, rangeLength, blockSize, encrypter, state);
+                } else {
+                    seekableMode.reverse(src, index, dst, index, rangeLength, blockSize, encrypter, state);
+                }
+            });
+            dst.force();
+            Utility.unmap(src);
+            Utility.unmap(dst);
+        }
+    }
+
+    private static long now(MetricsSink sink) {
+        return sink.isEnabled() ? System.nanoTime() : 0;
+    }
+
+    private static void recordStages(MetricsSink sink, long ioNanos, long paddingNanos, long modeNanos) {
+        if (sink.isEnabled()) {
+            sink.recordStage(MetricsSink.Stage.IO, ioNanos);
+            sink.recordStage(MetricsSink.Stage.PADDING, paddingNanos);
+            sink.recordStage(MetricsSink.Stage.MODE, modeNanos);
+        }
+    }
+
+    private void recordCompleted(MetricsSink sink, MetricsSink.Operation operation, long bytes, long nanos) {
+        sink.recordProcessed(encrypterType, modeType, bytes, bytes / blockSize);
+        sink.recordLatency(operation, nanos);
+        if (service instanceof ForkJoinPool pool) {
+            sink.recordExecutor((int) Math.min(pool.getQueuedTaskCount() + pool.getQueuedSubmissionCount(), Integer.MAX_VALUE), pool.getActiveThreadCount());
+        } else if (service instanceof ThreadPoolExecutor pool) {
+            sink.recordExecutor(pool.getQueue().size(), pool.getActiveCount());
+        }
+    }
+
+    /**
+     * Sets approximate amount of bytes processed by one parallel task of ECB, CTR, RD and CBC, PCBC, CFB decryption.
+     */
+    public void setParallelChunkSize(int chunkSize) {
+        if (mode instanceof ParallelMode parallelMode) {
+            parallelMode.setChunkSize(chunkSize);
+        }
+    }
+
+    /**
+     * Limits amount of threads one operation of this context may occupy at the same time, so that it cannot take
+     * all threads of an executor shared with other contexts. It is not fair scheduling: work already queued on the
+     * executor runs first. Integer.MAX_VALUE (default) lets the executor decide.
+     */
+    public void setMaxParallelism(int parallelism) {
+        if (mode instanceof ParallelMode parallelMode) {
+            parallelMode.setParallelism(parallelism);
+        }
+    }
+
+    /**
+     * Makes incremental OFB ciphers generate up to bufferSize bytes of keystream ahead on the executor of this
+     * context, starting as soon as the cipher is created or finishes a message. One-shot operations never generate
+     * ahead. Zero (default) switches it off. Has no effect on other modes.
+     */
+    public void setKeystreamBufferSize(int bufferSize) {
+        if (mode instanceof OFB ofb) {
+            ofb.setKeystreamBuffer(encrypter, service, bufferSize);
+        }
+    }
+
+    /**
+     * Sets amount of the lowest bytes of a CTR counter block holding the block index. Has no effect on other modes.
+     */
+    public void setCounterWidth(int counterWidth) {
+        if (mode instanceof CTR ctr) {
+            ctr.setCounterWidth(counterWidth);
+        }
+    }
+
+    /**
+     * Chooses what CTR does once block index does not fit into the counter, {@link CTR.OverflowPolicy#FAIL} by default.
+     * Has no effect on other modes.
+     */
+    public void setCounterOverflowPolicy(CTR.OverflowPolicy overflowPolicy) {
+        if (mode instanceof CTR ctr) {
+            ctr.setOverflowPolicy(overflowPolicy);
+        }
+    }
+
+    private int getNonceSize() {
+        return mode instanceof AuthenticatedMode authenticatedMode ? authenticatedMode.getNonceSize() : 0;
+    }
+
+    /**
+     * @return random nonce for a new message of an authenticated mode, empty for other modes
+     */
+    private byte[] newNonce() {
+        byte[] nonce = new byte[getNonceSize()];
+        if (nonce.length > 0) {
+            NONCES.nextBytes(nonce);
+        }
+        return nonce;
+    }
+
+    private ChainingState getInitialState(byte[] nonce) {
+        return mode instanceof AuthenticatedMode authenticatedMode ? authenticatedMode.getInitialState(blockSize, nonce) : mode.getInitialState(blockSize);
+    }
+
+    private int getTagSize() {
+        return mode instanceof AuthenticatedMode authenticatedMode ? authenticatedMode.getTagSize() : 0;
+    }
+
+    private byte[] getTag(ChainingState state) {
+        return mode instanceof AuthenticatedMode authenticatedMode ? authenticatedMode.getTag(state, encrypter) : new byte[0];
+    }
+
+    private void verifyTag(ChainingState state, byte[] tag) {
+        if (!MessageDigest.isEqual(getTag(state), tag)) {
+            throw new IllegalArgumentException("Authentication tag mismatch: encrypted data is corrupted or was modified!");
+        }
+    }
+
+    private void checkNotAuthenticated() {
+        if (mode instanceof AuthenticatedMode) {
+            throw new IllegalArgumentException("Incremental processing is not available for authenticated encrypt mode '" + modeType.name() + "'!");
+        }
+    }
+
+    private int getStreamChunkSize() {
+        return Math.max(STREAM_CHUNK_SIZE / blockSize, 1) * blockSize;
+    }
+
+    private static int readFully(FileChannel in, byte[] dst, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(dst, 0, length);
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Reads length bytes of encrypted data, failing if the file ends before that.
+     */
+    private static int readChunk(FileChannel in, byte[] dst, int length) throws IOException {
+        if (readFully(in, dst, length) != length) {
+            throw new IOException("Unexpected end of encrypted data!");
+        }
+        return length;
+    }
+
+    private static void readFully(FileChannel in, long position, byte[] dst) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(dst);
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file!");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel out, long position, byte[] src) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(src);
+        while (buffer.hasRemaining()) {
+            out.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static void writeFully(FileChannel out, byte[] src, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(src, 0, length);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
     @Override
     public void close() {
-        service.shutdown();
-        service.shutdownNow();
+        if (lease != null) {
+            lease.close();
+        }
+    }
+
+    @FunctionalInterface
+    private interface FileJob {
+
+        EncryptionState run(String pathToSrc, String pathToDest, StreamBuffers buffers);
+
+    }
+
+    /**
+     * Chunk buffers of one file worker, reused for all of its files. Two of each kind, so that a chunk can be
+     * read and another one written while the mode works on a third pair. They are allocated on first use and grown
+     * to the largest chunk asked for, so files smaller than a chunk never take a whole chunk of memory.
+     */
+    private static final class StreamBuffers {
+
+        private final byte[][] input = { new byte[0], new byte[0] };
+        private final byte[][] output = { new byte[0], new byte[0] };
+
+        private byte[] input(int index, int length) {
+            if (input[index].length < length) {
+                input[index] = new byte[length];
+            }
+            return input[index];
+        }
+
+        private byte[] output(int index, int length) {
+            if (output[index].length < length) {
+                output[index] = new byte[length];
+            }
+            return output[index];
+        }
+
+    }
+
+    /**
+     * Mode work on one chunk, run once by whichever comes first: the executor or the thread joining it.
+     */
+    private static final class ChunkTask implements Runnable {
+
+        private final Runnable work;
+        private final AtomicBoolean isClaimed = new AtomicBoolean();
+        private final CompletableFuture<Long> nanos = new CompletableFuture<>();
+
+        private ChunkTask(Runnable work) {
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            if (!isClaimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                long start = System.nanoTime();
+                work.run();
+                nanos.complete(System.nanoTime() - start);
+            } catch (Throwable error) {
+                nanos.completeExceptionally(error);
+            }
+        }
+
+        /**
+         * @return nanoseconds the mode spent on the chunk
+         */
+        private long join() {
+            run();
+            try {
+                return nanos.join();
+            } catch (CompletionException error) {
+                if (error.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (error.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw error;
+            }
+        }
+
+    }
+
+    private static final class SharedExecutor {
+
+        private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
     }
 
 }
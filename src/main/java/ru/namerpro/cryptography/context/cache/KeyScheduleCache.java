@@ -0,0 +1,190 @@
+package ru.namerpro.cryptography.context.cache;
+
+import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
+import ru.namerpro.cryptography.context.encrypter.Encrypter;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of ciphers with already expanded keys, shared between contexts which use the same
+ * (cipher, key, options) tuple. Entries are reference counted: an evicted cipher is wiped as soon as
+ * the last {@link Lease} on it is closed, and so is its copy of the key.
+ */
+public class KeyScheduleCache {
+
+    private final int capacity;
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public KeyScheduleCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive, but " + capacity + " found!");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns cipher for the tuple, expanding the key with factory on a miss. Options must have value semantics
+     * of equals (enums, numbers). The lease must be closed once the cipher is no longer used.
+     */
+    public Lease acquire(Encrypter encrypter, byte[] key, Object[] options, Supplier<SymmetricEncrypter> factory) {
+        CacheKey cacheKey = new CacheKey(encrypter, key.clone(), options.clone());
+        synchronized (this) {
+            Entry entry = entries.get(cacheKey);
+            if (entry != null) {
+                hits.increment();
+                ++entry.leases;
+                cacheKey.wipe();
+                return new Lease(entry);
+            }
+        }
+        misses.increment();
+        Entry created = new Entry(cacheKey, factory.get());
+        synchronized (this) {
+            Entry entry = entries.putIfAbsent(cacheKey, created);
+            if (entry != null) {
+                ++entry.leases;
+                created.wipe();
+                return new Lease(entry);
+            }
+            ++created.leases;
+            evictOverflow();
+            return new Lease(created);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drops all entries. Ciphers still leased are wiped when their leases are closed.
+     */
+    public synchronized void clear() {
+        for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+            evict(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > capacity && iterator.hasNext()) {
+            evict(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    private void evict(Entry entry) {
+        evictions.increment();
+        entry.isEvicted = true;
+        if (entry.leases == 0) {
+            entry.wipe();
+        }
+    }
+
+    private synchronized void release(Entry entry) {
+        if (--entry.leases == 0 && entry.isEvicted) {
+            entry.wipe();
+        }
+    }
+
+    /**
+     * Handle of a cached cipher held by its user. Closing it more than once has no effect.
+     */
+    public class Lease implements AutoCloseable {
+
+        private final Entry entry;
+        private boolean isClosed;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        public SymmetricEncrypter getEncrypter() {
+            return entry.encrypter;
+        }
+
+        @Override
+        public void close() {
+            synchronized (KeyScheduleCache.this) {
+                if (isClosed) {
+                    return;
+                }
+                isClosed = true;
+                release(entry);
+            }
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final CacheKey key;
+        private final SymmetricEncrypter encrypter;
+        private int leases;
+        private boolean isEvicted;
+
+        private Entry(CacheKey key, SymmetricEncrypter encrypter) {
+            this.key = key;
+            this.encrypter = encrypter;
+        }
+
+        private void wipe() {
+            encrypter.wipe();
+            key.wipe();
+        }
+
+    }
+
+    private static final class CacheKey {
+
+        private final Encrypter encrypter;
+        private final byte[] key;
+        private final Object[] options;
+        private final int hash;
+
+        private CacheKey(Encrypter encrypter, byte[] key, Object[] options) {
+            this.encrypter = encrypter;
+            this.key = key;
+            this.options = options;
+            this.hash = 31 * (31 * encrypter.hashCode() + Arrays.hashCode(key)) + Arrays.hashCode(options);
+        }
+
+        private void wipe() {
+            Arrays.fill(key, (byte) 0);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof CacheKey that && encrypter == that.encrypter
+                    && Arrays.equals(key, that.key) && Arrays.equals(options, that.options);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
@@ -0,0 +1,99 @@
+package ru.namerpro.cryptography.metrics;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import ru.namerpro.cryptography.context.encrypter.Encrypter;
+import ru.namerpro.cryptography.mode.Mode;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory aggregation of context metrics which can be dumped to SLF4J with {@link #report()}.
+ */
+@Slf4j
+public class ContextMetrics implements MetricsSink {
+
+    private final LongAdder[][] bytes = new LongAdder[Encrypter.values().length][];
+    private final LongAdder[][] blocks = new LongAdder[Encrypter.values().length][];
+    private final LongAdder[] stageNanos = newAdders(Stage.values().length);
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    @Getter
+    private volatile int queueDepth;
+    @Getter
+    private volatile int activeThreads;
+
+    public ContextMetrics() {
+        for (int i = 0; i < bytes.length; ++i) {
+            bytes[i] = newAdders(Mode.values().length);
+            blocks[i] = newAdders(Mode.values().length);
+        }
+        for (int i = 0; i < latencies.length; ++i) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public void recordProcessed(Encrypter encrypter, Mode mode, long bytes, long blocks) {
+        this.bytes[encrypter.ordinal()][mode.ordinal()].add(bytes);
+        this.blocks[encrypter.ordinal()][mode.ordinal()].add(blocks);
+    }
+
+    @Override
+    public void recordLatency(Operation operation, long nanos) {
+        latencies[operation.ordinal()].record(nanos);
+    }
+
+    @Override
+    public void recordStage(Stage stage, long nanos) {
+        stageNanos[stage.ordinal()].add(nanos);
+    }
+
+    @Override
+    public void recordExecutor(int queueDepth, int activeThreads) {
+        this.queueDepth = queueDepth;
+        this.activeThreads = activeThreads;
+    }
+
+    public long getBytes(Encrypter encrypter, Mode mode) {
+        return bytes[encrypter.ordinal()][mode.ordinal()].sum();
+    }
+
+    public long getBlocks(Encrypter encrypter, Mode mode) {
+        return blocks[encrypter.ordinal()][mode.ordinal()].sum();
+    }
+
+    public long getStageNanos(Stage stage) {
+        return stageNanos[stage.ordinal()].sum();
+    }
+
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    public void report() {
+        for (Encrypter encrypter : Encrypter.values()) {
+            for (Mode mode : Mode.values()) {
+                long processedBytes = getBytes(encrypter, mode);
+                if (processedBytes > 0) {
+                    log.info("{}/{}: {} bytes, {} blocks", encrypter, mode, processedBytes, getBlocks(encrypter, mode));
+                }
+            }
+        }
+        for (Operation operation : Operation.values()) {
+            log.info("{} latency: {}", operation, getLatency(operation));
+        }
+        for (Stage stage : Stage.values()) {
+            log.info("time in {}: {} ms", stage, getStageNanos(stage) / 1_000_000);
+        }
+        log.info("executor: queue depth {}, active threads {}", queueDepth, activeThreads);
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; ++i) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+}
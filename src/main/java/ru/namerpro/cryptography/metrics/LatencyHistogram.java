@@ -0,0 +1,58 @@
+package ru.namerpro.cryptography.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of nanosecond latencies with power-of-two buckets: bucket i holds values in [2^i, 2^(i + 1)).
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS_COUNT = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS_COUNT);
+
+    public void record(long nanos) {
+        buckets.incrementAndGet(getBucket(nanos));
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS_COUNT; ++i) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    public long getBucketCount(int bucket) {
+        return buckets.get(bucket);
+    }
+
+    /**
+     * Upper bound of the bucket containing the given quantile (0..1], or 0 if nothing was recorded.
+     */
+    public long getQuantile(double quantile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS_COUNT - 1; ++i) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return (1L << (i + 1)) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + ", p50<=" + getQuantile(0.5) + "ns, p99<=" + getQuantile(0.99) + "ns, max<=" + getQuantile(1);
+    }
+
+    private static int getBucket(long nanos) {
+        return nanos <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+}
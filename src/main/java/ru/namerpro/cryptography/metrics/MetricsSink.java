@@ -0,0 +1,64 @@
+package ru.namerpro.cryptography.metrics;
+
+import ru.namerpro.cryptography.context.encrypter.Encrypter;
+import ru.namerpro.cryptography.mode.Mode;
+
+/**
+ * Receiver of SymmetricEncrypterContext instrumentation events. Context does not read the clock
+ * and does not call the sink at all while {@link #isEnabled()} is false, so {@link #NOOP} costs nothing.
+ */
+public interface MetricsSink {
+
+    MetricsSink NOOP = new MetricsSink() {
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void recordProcessed(Encrypter encrypter, Mode mode, long bytes, long blocks) {
+            // disabled
+        }
+
+        @Override
+        public void recordLatency(Operation operation, long nanos) {
+            // disabled
+        }
+
+        @Override
+        public void recordStage(Stage stage, long nanos) {
+            // disabled
+        }
+
+        @Override
+        public void recordExecutor(int queueDepth, int activeThreads) {
+            // disabled
+        }
+
+    };
+
+    enum Operation {
+        ENCRYPT,
+        DECRYPT
+    }
+
+    enum Stage {
+        PADDING,
+        MODE,
+        IO
+    }
+
+    default boolean isEnabled() {
+        return true;
+    }
+
+    void recordProcessed(Encrypter encrypter, Mode mode, long bytes, long blocks);
+
+    void recordLatency(Operation operation, long nanos);
+
+    void recordStage(Stage stage, long nanos);
+
+    void recordExecutor(int queueDepth, int activeThreads);
+
+}
@@ -7,5 +7,6 @@ public enum Mode {
     CFB,
     OFB,
     CTR,
-    RD
+    RD,
+    GCM
 }
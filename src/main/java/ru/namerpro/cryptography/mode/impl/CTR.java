@@ -1,23 +1,38 @@
 package ru.namerpro.cryptography.mode.impl;
 
-import ru.namerpro.cryptography.utils.Pair;
+import ru.namerpro.cryptography.api.symmetric.modes.ChainingState;
+import ru.namerpro.cryptography.api.symmetric.modes.SeekableMode;
 import ru.namerpro.cryptography.utils.Utility;
-import ru.namerpro.cryptography.api.symmetric.modes.SymmetricEncryptMode;
 import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
-public class CTR implements SymmetricEncryptMode {
+/**
+ * Counter block is the IV followed by the big-endian block index in the lowest counterWidth bytes, with zeros
+ * in between. By default the counter takes the whole rest of the block. Counter blocks of a range are built
+ * in the destination by incrementing the previous one and encrypted in one batch.
+ */
+public class CTR extends ParallelMode implements SeekableMode {
+
+    public enum OverflowPolicy {
+        /**
+         * Refuses to process blocks whose index does not fit into the counter, nothing of such a call is processed.
+         */
+        FAIL,
+        /**
+         * Counter silently starts over from zero, repeating keystream.
+         */
+        WRAP
+    }
 
-    private final ExecutorService service;
     private final byte[] iv;
     private final int blockSize;
+    private int counterWidth;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.FAIL;
 
     public CTR(ExecutorService service, byte[] iv, int blockSize) {
-        this.service = service;
+        super(service);
 
         if (blockSize <= iv.length) {
             throw new IllegalArgumentException("Length of IV cannot be more than block size! Block size: " + blockSize + ", IV length: " + iv.length);
@@ -25,40 +40,130 @@ public class CTR implements SymmetricEncryptMode {
 
         this.iv = iv;
         this.blockSize = blockSize;
+        this.counterWidth = blockSize - iv.length;
+    }
+
+    /**
+     * @param counterWidth amount of the lowest bytes of a counter block holding the block index, at most block size
+     *                     minus IV length
+     */
+    public void setCounterWidth(int counterWidth) {
+        if (counterWidth <= 0 || counterWidth > blockSize - iv.length) {
+            throw new IllegalArgumentException("Counter width must be in range [1, " + (blockSize - iv.length) + "], but " + counterWidth + " found!");
+        }
+        this.counterWidth = counterWidth;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("Overflow policy must not be null!");
+        }
+        this.overflowPolicy = overflowPolicy;
     }
 
     @Override
-    public byte[] apply(byte[] src, int blockSize, SymmetricEncrypter encrypter) {
-        return innerApplyReverseLogic(src, blockSize, encrypter);
+    public ChainingState getInitialState(int blockSize) {
+        return new ChainingState(null);
     }
 
     @Override
-    public byte[] reverse(byte[] src, int blockSize, SymmetricEncrypter encrypter) {
-        return innerApplyReverseLogic(src, blockSize, encrypter);
+    public void apply(byte[] src, int srcOff, byte[] dst, int dstOff, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        innerApplyReverseLogic(src, srcOff, dst, dstOff, length, blockSize, encrypter, state);
     }
 
-    private byte[] innerApplyReverseLogic(byte[] src, int blockSize, SymmetricEncrypter encrypter) {
-        List<Pair<Integer, Future<byte[]>>> futures = new ArrayList<>();
-        byte[][] split = Utility.splitToBlocks(src, blockSize);
-        for (int i = 0; i < split.length; ++i) {
-            int finalI = i;
-            futures.add(Pair.of(i, service.submit(() -> Utility.xor(split[finalI], encrypter.encrypt(getCounter(iv,finalI))))));
+    @Override
+    public void reverse(byte[] src, int srcOff, byte[] dst, int dstOff, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        innerApplyReverseLogic(src, srcOff, dst, dstOff, length, blockSize, encrypter, state);
+    }
+
+    @Override
+    public void apply(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        innerApplyReverseLogic(src, srcIndex, dst, dstIndex, length, blockSize, encrypter, state);
+    }
+
+    @Override
+    public void reverse(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        innerApplyReverseLogic(src, srcIndex, dst, dstIndex, length, blockSize, encrypter, state);
+    }
+
+    private void innerApplyReverseLogic(byte[] src, int srcOff, byte[] dst, int dstOff, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        long firstBlockIndex = state.getBlockIndex();
+        int width = counterWidth;
+        checkOverflow(firstBlockIndex, length / blockSize, width);
+        forEachBlockRange(length, blockSize, (from, to) -> {
+            int rangeOff = dstOff + from * blockSize;
+            putCounter(iv, firstBlockIndex + from, width, dst, rangeOff);
+            for (int offset = rangeOff + blockSize; offset < dstOff + to * blockSize; offset += blockSize) {
+                System.arraycopy(dst, offset - blockSize, dst, offset, blockSize);
+                increment(dst, offset, width);
+            }
+            encrypter.encryptBlocks(dst, rangeOff, dst, rangeOff, to - from);
+            Utility.xor(dst, rangeOff, src, srcOff + from * blockSize, dst, rangeOff, (to - from) * blockSize);
+        });
+        state.advance(length / blockSize);
+    }
+
+    private void innerApplyReverseLogic(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        long firstBlockIndex = state.getBlockIndex();
+        int width = counterWidth;
+        checkOverflow(firstBlockIndex, length / blockSize, width);
+        forEachBlockRange(length, blockSize, (from, to) -> {
+            int rangeIndex = dstIndex + from * blockSize;
+            putCounter(iv, firstBlockIndex + from, width, dst, rangeIndex);
+            for (int index = rangeIndex + blockSize; index < dstIndex + to * blockSize; index += blockSize) {
+                dst.put(index, dst, index - blockSize, blockSize);
+                increment(dst, index, width);
+            }
+            for (int index = rangeIndex; index < dstIndex + to * blockSize; index += blockSize) {
+                encrypter.encryptBlock(dst, index, dst, index);
+            }
+            Utility.xor(dst, rangeIndex, src, srcIndex + from * blockSize, dst, rangeIndex, (to - from) * blockSize);
+        });
+        state.advance(length / blockSize);
+    }
+
+    private void checkOverflow(long firstBlockIndex, int blocksCount, int width) {
+        if (overflowPolicy == OverflowPolicy.WRAP || blocksCount == 0 || width >= Long.BYTES) {
+            return;
+        }
+        long lastBlockIndex = firstBlockIndex + blocksCount - 1;
+        if (lastBlockIndex >>> (8 * width) != 0) {
+            throw new IllegalArgumentException("Counter of " + width + " bytes is exhausted: block " + lastBlockIndex + " cannot be encrypted without repeating keystream!");
+        }
+    }
+
+    private void increment(byte[] dst, int dstOff, int width) {
+        for (int i = dstOff + blockSize - 1; i >= dstOff + blockSize - width; --i) {
+            if (++dst[i] != 0) {
+                return;
+            }
         }
-        return Utility.queryResult(futures, blockSize, src.length);
-    }
-
-    private byte[] getCounter(byte[] left, int right) {
-        byte[] counter = new byte[blockSize];
-        int j = 0;
-        for (int i = 0; i < blockSize; ++i) {
-            if (i < left.length) {
-                counter[i] |= left[i];
-            } else {
-                counter[blockSize - ++j] |= (byte) right;
-                right >>>= 8;
+    }
+
+    private void increment(ByteBuffer dst, int dstIndex, int width) {
+        for (int i = dstIndex + blockSize - 1; i >= dstIndex + blockSize - width; --i) {
+            byte value = (byte) (dst.get(i) + 1);
+            dst.put(i, value);
+            if (value != 0) {
+                return;
             }
         }
-        return counter;
+    }
+
+    private void putCounter(byte[] left, long right, int width, ByteBuffer dst, int dstIndex) {
+        dst.put(dstIndex, left);
+        for (int i = blockSize - 1; i >= left.length; --i) {
+            dst.put(dstIndex + i, blockSize - 1 - i < width ? (byte) right : 0);
+            right >>>= 8;
+        }
+    }
+
+    private void putCounter(byte[] left, long right, int width, byte[] dst, int dstOff) {
+        System.arraycopy(left, 0, dst, dstOff, left.length);
+        for (int i = blockSize - 1; i >= left.length; --i) {
+            dst[dstOff + i] = blockSize - 1 - i < width ? (byte) right : 0;
+            right >>>= 8;
+        }
     }
 
 }
@@ -1,41 +1,55 @@
 package ru.namerpro.cryptography.mode.impl;
 
-import lombok.RequiredArgsConstructor;
-import ru.namerpro.cryptography.utils.Pair;
-import ru.namerpro.cryptography.utils.Utility;
-import ru.namerpro.cryptography.api.symmetric.modes.SymmetricEncryptMode;
+import ru.namerpro.cryptography.api.symmetric.modes.ChainingState;
+import ru.namerpro.cryptography.api.symmetric.modes.SeekableMode;
 import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
-@RequiredArgsConstructor
-public class ECB implements SymmetricEncryptMode {
+public class ECB extends ParallelMode implements SeekableMode {
 
-    private final ExecutorService service;
+    public ECB(ExecutorService service) {
+        super(service);
+    }
+
+    @Override
+    public ChainingState getInitialState(int blockSize) {
+        return new ChainingState(null);
+    }
+
+    @Override
+    public void apply(byte[] src, int srcOff, byte[] dst, int dstOff, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        forEachBlockRange(length, blockSize, (from, to) ->
+                encrypter.encryptBlocks(src, srcOff + from * blockSize, dst, dstOff + from * blockSize, to - from));
+        state.advance(length / blockSize);
+    }
+
+    @Override
+    public void reverse(byte[] src, int srcOff, byte[] dst, int dstOff, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        forEachBlockRange(length, blockSize, (from, to) ->
+                encrypter.decryptBlocks(src, srcOff + from * blockSize, dst, dstOff + from * blockSize, to - from));
+        state.advance(length / blockSize);
+    }
 
     @Override
-    public byte[] apply(byte[] src, int blockSize, SymmetricEncrypter encrypter) {
-        List<Pair<Integer, Future<byte[]>>> futures = new ArrayList<>();
-        byte[][] split = Utility.splitToBlocks(src, blockSize);
-        for (int i = 0; i < split.length; ++i) {
-            int finalI = i;
-            futures.add(Pair.of(i, service.submit(() -> encrypter.encrypt(split[finalI]))));
-        }
-        return Utility.queryResult(futures, blockSize, src.length);
+    public void apply(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        forEachBlockRange(length, blockSize, (from, to) -> {
+            for (int offset = from * blockSize; offset < to * blockSize; offset += blockSize) {
+                encrypter.encryptBlock(src, srcIndex + offset, dst, dstIndex + offset);
+            }
+        });
+        state.advance(length / blockSize);
     }
 
     @Override
-    public byte[] reverse(byte[] src, int blockSize, SymmetricEncrypter encrypter) {
-        List<Pair<Integer, Future<byte[]>>> futures = new ArrayList<>();
-        byte[][] split = Utility.splitToBlocks(src, blockSize);
-        for (int i = 0; i < split.length; ++i) {
-            int finalI = i;
-            futures.add(Pair.of(i, service.submit(() -> encrypter.decrypt(split[finalI]))));
-        }
-        return Utility.queryResult(futures, blockSize, src.length);
+    public void reverse(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        forEachBlockRange(length, blockSize, (from, to) -> {
+            for (int offset = from * blockSize; offset < to * blockSize; offset += blockSize) {
+                encrypter.decryptBlock(src, srcIndex + offset, dst, dstIndex + offset);
+            }
+        });
+        state.advance(length / blockSize);
     }
 
 }
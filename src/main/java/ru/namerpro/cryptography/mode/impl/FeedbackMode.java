@@ -0,0 +1,77 @@
+package ru.namerpro.cryptography.mode.impl;
+
+import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
+import ru.namerpro.cryptography.api.symmetric.modes.ChainingState;
+import ru.namerpro.cryptography.api.symmetric.modes.InterleavedMode;
+import ru.namerpro.cryptography.utils.Utility;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Base of the modes chaining every encrypted block into the next one. Messages of an interleaved call are
+ * handed to the service in groups of {@link #LANES}; inside a group each step gathers the cipher input of every
+ * unfinished message into one buffer and encrypts it with a single {@link SymmetricEncrypter#encryptBlocks} call.
+ */
+public abstract class FeedbackMode extends ParallelMode implements InterleavedMode {
+
+    public static final int LANES = 8;
+
+    protected FeedbackMode(ExecutorService service) {
+        super(service);
+    }
+
+    @Override
+    public void applyInterleaved(byte[][] src, byte[][] dst, int blockSize, SymmetricEncrypter encrypter, ChainingState[] states) {
+        if (src.length != dst.length || src.length != states.length) {
+            throw new IllegalArgumentException("Every message needs its destination and state, but " + src.length + " messages, "
+                    + dst.length + " destinations and " + states.length + " states found!");
+        }
+        for (int i = 0; i < src.length; ++i) {
+            if (src[i].length % blockSize != 0) {
+                throw new IllegalArgumentException("Message length must be a multiple of block size " + blockSize + ", but " + src[i].length + " found!");
+            }
+            if (dst[i].length < src[i].length) {
+                throw new IllegalArgumentException("Destination of " + src[i].length + " bytes expected, but " + dst[i].length + " found!");
+            }
+        }
+        Utility.runInParallel(getService(), src.length, LANES, getParallelism(), (from, to) -> {
+            byte[] lanes = new byte[LANES * blockSize];
+            int[] active = new int[LANES];
+            for (int group = from; group < to; group += LANES) {
+                int groupEnd = Math.min(group + LANES, to);
+                int longest = 0;
+                for (int i = group; i < groupEnd; ++i) {
+                    longest = Math.max(longest, src[i].length);
+                }
+                for (int offset = 0; offset < longest; offset += blockSize) {
+                    int count = 0;
+                    for (int i = group; i < groupEnd; ++i) {
+                        if (offset < src[i].length) {
+                            enterLane(src[i], offset, states[i].getFeedback(), lanes, count * blockSize, blockSize);
+                            active[count++] = i;
+                        }
+                    }
+                    encrypter.encryptBlocks(lanes, 0, lanes, 0, count);
+                    for (int lane = 0; lane < count; ++lane) {
+                        int i = active[lane];
+                        leaveLane(src[i], offset, lanes, lane * blockSize, dst[i], states[i].getFeedback(), blockSize);
+                    }
+                }
+                for (int i = group; i < groupEnd; ++i) {
+                    states[i].advance(src[i].length / blockSize);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes cipher input for the block of src at srcOff to lanes[laneOff].
+     */
+    protected abstract void enterLane(byte[] src, int srcOff, byte[] feedback, byte[] lanes, int laneOff, int blockSize);
+
+    /**
+     * Turns cipher output at lanes[laneOff] into the block of dst at srcOff and updates feedback.
+     */
+    protected abstract void leaveLane(byte[] src, int srcOff, byte[] lanes, int laneOff, byte[] dst, byte[] feedback, int blockSize);
+
+}
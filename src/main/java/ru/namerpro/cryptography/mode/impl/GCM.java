@@ -0,0 +1,184 @@
+package ru.namerpro.cryptography.mode.impl;
+
+import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
+import ru.namerpro.cryptography.api.symmetric.modes.AuthenticatedMode;
+import ru.namerpro.cryptography.api.symmetric.modes.ChainingState;
+import ru.namerpro.cryptography.utils.stateless.GHashTable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Galois/Counter Mode for ciphers with 128-bit blocks, 96-bit IV and no associated data. Data goes through
+ * {@link CTR} with a 32-bit counter starting from 2, and the ciphertext is absorbed by GHASH segment by segment
+ * while it is still in cache, so a message is read once. Tag is E(IV || 1) ^ GHASH(ciphertext || lengths).
+ * Every message needs its own IV, passed as nonce to {@link #getInitialState(int, byte[])}; the IV given to the
+ * constructor, if any, is only a default for {@link #getInitialState(int)}.
+ */
+public class GCM implements AuthenticatedMode {
+
+    public static final int IV_SIZE = 12;
+    public static final int TAG_SIZE = 16;
+
+    private static final int SEGMENT_SIZE = 1 << 12;
+    private static final int FIRST_DATA_COUNTER = 2;
+
+    private final ExecutorService service;
+    private final byte[] iv;
+    private volatile HashKey hashKey;
+
+    /**
+     * Mode whose messages all take their IV from {@link #getInitialState(int, byte[])}.
+     */
+    public GCM(ExecutorService service, int blockSize) {
+        this(service, null, blockSize);
+    }
+
+    public GCM(ExecutorService service, byte[] iv, int blockSize) {
+        if (blockSize != GHashTable.BLOCK_SIZE) {
+            throw new IllegalArgumentException("GCM requires cipher with block size " + GHashTable.BLOCK_SIZE + ", but " + blockSize + " found!");
+        }
+        if (iv != null) {
+            checkNonce(iv);
+        }
+        this.service = service;
+        this.iv = iv == null ? null : iv.clone();
+    }
+
+    @Override
+    public ChainingState getInitialState(int blockSize) {
+        if (iv == null) {
+            throw new IllegalArgumentException("GCM created without IV requires a nonce for every message!");
+        }
+        return getInitialState(blockSize, iv);
+    }
+
+    @Override
+    public ChainingState getInitialState(int blockSize, byte[] nonce) {
+        checkNonce(nonce);
+        byte[] copy = nonce.clone();
+        CTR ctr = new CTR(service, copy, blockSize);
+        return new GCMState(copy, ctr, ctr.getStateAt(FIRST_DATA_COUNTER, blockSize));
+    }
+
+    @Override
+    public int getNonceSize() {
+        return IV_SIZE;
+    }
+
+    @Override
+    public int getTagSize() {
+        return TAG_SIZE;
+    }
+
+    @Override
+    public byte[] getTag(ChainingState state, SymmetricEncrypter encrypter) {
+        GCMState gcmState = checkState(state);
+        long[] hash = gcmState.hash.clone();
+        hash[1] ^= gcmState.getBlockIndex() * GHashTable.BLOCK_SIZE * 8;
+        getTable(encrypter).multiply(hash);
+        byte[] tag = Arrays.copyOf(gcmState.nonce, TAG_SIZE);
+        tag[TAG_SIZE - 1] = 1;
+        encrypter.encryptBlock(tag, 0, tag, 0);
+        for (int k = 0; k < TAG_SIZE; ++k) {
+            tag[k] ^= (byte) (hash[k >>> 3] >>> (8 * (7 - (k & 7))));
+        }
+        return tag;
+    }
+
+    @Override
+    public void apply(byte[] src, int srcOff, byte[] dst, int dstOff, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        GCMState gcmState = checkState(state);
+        GHashTable table = getTable(encrypter);
+        for (int offset = 0; offset < length; offset += SEGMENT_SIZE) {
+            int segment = Math.min(SEGMENT_SIZE, length - offset);
+            gcmState.ctr.apply(src, srcOff + offset, dst, dstOff + offset, segment, blockSize, encrypter, gcmState.counter);
+            table.update(gcmState.hash, dst, dstOff + offset, segment);
+        }
+        state.advance(length / blockSize);
+    }
+
+    @Override
+    public void reverse(byte[] src, int srcOff, byte[] dst, int dstOff, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        GCMState gcmState = checkState(state);
+        GHashTable table = getTable(encrypter);
+        for (int offset = 0; offset < length; offset += SEGMENT_SIZE) {
+            int segment = Math.min(SEGMENT_SIZE, length - offset);
+            table.update(gcmState.hash, src, srcOff + offset, segment);
+            gcmState.ctr.reverse(src, srcOff + offset, dst, dstOff + offset, segment, blockSize, encrypter, gcmState.counter);
+        }
+        state.advance(length / blockSize);
+    }
+
+    @Override
+    public void apply(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        GCMState gcmState = checkState(state);
+        GHashTable table = getTable(encrypter);
+        for (int offset = 0; offset < length; offset += SEGMENT_SIZE) {
+            int segment = Math.min(SEGMENT_SIZE, length - offset);
+            gcmState.ctr.apply(src, srcIndex + offset, dst, dstIndex + offset, segment, blockSize, encrypter, gcmState.counter);
+            table.update(gcmState.hash, dst, dstIndex + offset, segment);
+        }
+        state.advance(length / blockSize);
+    }
+
+    @Override
+    public void reverse(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        GCMState gcmState = checkState(state);
+        GHashTable table = getTable(encrypter);
+        for (int offset = 0; offset < length; offset += SEGMENT_SIZE) {
+            int segment = Math.min(SEGMENT_SIZE, length - offset);
+            table.update(gcmState.hash, src, srcIndex + offset, segment);
+            gcmState.ctr.reverse(src, srcIndex + offset, dst, dstIndex + offset, segment, blockSize, encrypter, gcmState.counter);
+        }
+        state.advance(length / blockSize);
+    }
+
+    /**
+     * Hash key H = E(0^128) belongs to the encrypter, so the table of the last used one is kept.
+     */
+    private GHashTable getTable(SymmetricEncrypter encrypter) {
+        HashKey key = hashKey;
+        if (key == null || key.encrypter != encrypter) {
+            byte[] h = new byte[GHashTable.BLOCK_SIZE];
+            encrypter.encryptBlock(h, 0, h, 0);
+            key = new HashKey(encrypter, new GHashTable(h));
+            hashKey = key;
+        }
+        return key.table;
+    }
+
+    private static void checkNonce(byte[] nonce) {
+        if (nonce.length != IV_SIZE) {
+            throw new IllegalArgumentException("GCM requires IV of " + IV_SIZE + " bytes, but " + nonce.length + " found!");
+        }
+    }
+
+    private static GCMState checkState(ChainingState state) {
+        if (!(state instanceof GCMState gcmState)) {
+            throw new IllegalArgumentException("GCM can only continue states created by GCM!");
+        }
+        return gcmState;
+    }
+
+    private record HashKey(SymmetricEncrypter encrypter, GHashTable table) {
+    }
+
+    private static class GCMState extends ChainingState {
+
+        private final byte[] nonce;
+        private final CTR ctr;
+        private final ChainingState counter;
+        private final long[] hash = new long[2];
+
+        private GCMState(byte[] nonce, CTR ctr, ChainingState counter) {
+            super(null);
+            this.nonce = nonce;
+            this.ctr = ctr;
+            this.counter = counter;
+        }
+
+    }
+
+}
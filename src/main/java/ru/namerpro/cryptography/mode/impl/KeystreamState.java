@@ -0,0 +1,150 @@
+package ru.namerpro.cryptography.mode.impl;
+
+import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
+import ru.namerpro.cryptography.api.symmetric.modes.ChainingState;
+import ru.namerpro.cryptography.utils.Utility;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * OFB chaining state generating keystream ahead of its consumer into a ring of fixed size. Generation starts
+ * on the executor as soon as the state is created and is resumed whenever the consumer frees room, so that
+ * encryption itself mostly XORs with keystream that is already there. The refill task exits when the ring is
+ * full instead of waiting, thus an abandoned state occupies no thread. A consumer finding the ring empty while
+ * the refill task has not started yet generates keystream itself, so a busy executor never blocks it.
+ */
+class KeystreamState extends ChainingState {
+
+    private final SymmetricEncrypter encrypter;
+    private final Executor executor;
+    private final int blockSize;
+    private final byte[] ring;
+    private long produced;
+    private long consumed;
+    private boolean isScheduled;
+    private boolean isGenerating;
+
+    KeystreamState(byte[] iv, SymmetricEncrypter encrypter, int blockSize, int bufferSize, Executor executor) {
+        super(iv);
+        this.encrypter = encrypter;
+        this.executor = executor;
+        this.blockSize = blockSize;
+        this.ring = new byte[Math.max(bufferSize / blockSize, 1) * blockSize];
+        scheduleRefill();
+    }
+
+    boolean isGeneratedBy(SymmetricEncrypter encrypter) {
+        return this.encrypter == encrypter;
+    }
+
+    void xor(byte[] src, int srcOff, byte[] dst, int dstOff, int length) {
+        for (int done = 0; done < length; ) {
+            int at = awaitKeystream();
+            int count = Math.min(length - done, available(at));
+            Utility.xor(src, srcOff + done, ring, at, dst, dstOff + done, count);
+            release(count);
+            done += count;
+        }
+        advance(length / blockSize);
+    }
+
+    void xor(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length) {
+        for (int done = 0; done < length; ) {
+            int at = awaitKeystream();
+            int count = Math.min(length - done, available(at));
+            Utility.xor(src, srcIndex + done, ring, at, dst, dstIndex + done, count);
+            release(count);
+            done += count;
+        }
+        advance(length / blockSize);
+    }
+
+    /**
+     * @return ring offset of the first unconsumed byte once there is any
+     */
+    private int awaitKeystream() {
+        synchronized (this) {
+            if (produced != consumed) {
+                return (int) (consumed % ring.length);
+            }
+        }
+        refill();
+        synchronized (this) {
+            boolean isInterrupted = false;
+            while (produced == consumed) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    isInterrupted = true;
+                }
+            }
+            if (isInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return (int) (consumed % ring.length);
+        }
+    }
+
+    /**
+     * @return amount of generated bytes lying contiguously from ring offset at
+     */
+    private synchronized int available(int at) {
+        return (int) Math.min(produced - consumed, ring.length - at);
+    }
+
+    private void release(int count) {
+        synchronized (this) {
+            consumed += count;
+        }
+        scheduleRefill();
+    }
+
+    private void scheduleRefill() {
+        synchronized (this) {
+            if (isScheduled || isGenerating || ring.length - (produced - consumed) < blockSize) {
+                return;
+            }
+            isScheduled = true;
+        }
+        try {
+            executor.execute(this::refill);
+        } catch (RejectedExecutionException e) {
+            refill();
+        }
+    }
+
+    private void refill() {
+        synchronized (this) {
+            isScheduled = false;
+            if (isGenerating) {
+                return;
+            }
+            isGenerating = true;
+        }
+        byte[] feedback = getFeedback();
+        while (true) {
+            int at;
+            int count;
+            synchronized (this) {
+                long free = ring.length - (produced - consumed);
+                if (free < blockSize) {
+                    isGenerating = false;
+                    return;
+                }
+                at = (int) (produced % ring.length);
+                count = (int) Math.min(free, ring.length - at);
+            }
+            for (int offset = at; offset < at + count; offset += blockSize) {
+                encrypter.encryptBlock(feedback, 0, feedback, 0);
+                System.arraycopy(feedback, 0, ring, offset, blockSize);
+            }
+            synchronized (this) {
+                produced += count;
+                notifyAll();
+            }
+        }
+    }
+
+}
@@ -1,51 +1,105 @@
 package ru.namerpro.cryptography.mode.impl;
 
 import lombok.RequiredArgsConstructor;
+import ru.namerpro.cryptography.api.symmetric.modes.ChainingState;
 import ru.namerpro.cryptography.utils.Utility;
 import ru.namerpro.cryptography.api.symmetric.modes.SymmetricEncryptMode;
 import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
 
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+
 @RequiredArgsConstructor
 public class OFB implements SymmetricEncryptMode {
 
     private final byte[] iv;
+    private volatile KeystreamSource keystreamSource;
+
+    /**
+     * Makes states created by {@link #prepare(int)} generate up to bufferSize bytes of keystream of the encrypter
+     * ahead on the executor, starting right away. Such states may only be used with that encrypter.
+     * Zero buffer size switches generation ahead off. States of {@link #getInitialState(int)} never generate ahead,
+     * as a one-shot message would throw most of the buffer away.
+     */
+    public void setKeystreamBuffer(SymmetricEncrypter encrypter, Executor executor, int bufferSize) {
+        if (bufferSize < 0) {
+            throw new IllegalArgumentException("Keystream buffer size must not be negative, but " + bufferSize + " found!");
+        }
+        this.keystreamSource = bufferSize == 0 ? null : new KeystreamSource(encrypter, executor, bufferSize);
+    }
+
+    @Override
+    public ChainingState getInitialState(int blockSize) {
+        return new ChainingState(iv);
+    }
+
+    /**
+     * @return initial state for a message fed in portions over time, generating keystream ahead if
+     * {@link #setKeystreamBuffer(SymmetricEncrypter, Executor, int)} is on
+     */
+    public ChainingState prepare(int blockSize) {
+        KeystreamSource source = keystreamSource;
+        if (source != null && source.encrypter.getBlockSize() == blockSize) {
+            return new KeystreamState(iv, source.encrypter, blockSize, source.bufferSize, source.executor);
+        }
+        return getInitialState(blockSize);
+    }
+
+    @Override
+    public void apply(byte[] src, int srcOff, byte[] dst, int dstOff, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        innerApplyReverseLogic(src, srcOff, dst, dstOff, length, blockSize, encrypter, state);
+    }
 
     @Override
-    public byte[] apply(byte[] src, int blockSize, SymmetricEncrypter encrypter) {
-        byte[][] split = Utility.splitToBlocks(src, blockSize);
-        byte[][] o = preprocess(split.length, encrypter);
-        byte[] c = new byte[src.length];
-        byte[] block;
-        for (int i = 0; i < split.length; ++i) {
-            block = Utility.xor(split[i], o[i]);
-            for (int j = 0; j < blockSize; ++j) {
-                c[blockSize * i + j] = block[j];
-            }
+    public void reverse(byte[] src, int srcOff, byte[] dst, int dstOff, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        innerApplyReverseLogic(src, srcOff, dst, dstOff, length, blockSize, encrypter, state);
+    }
+
+    private void innerApplyReverseLogic(byte[] src, int srcOff, byte[] dst, int dstOff, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        if (state instanceof KeystreamState keystream) {
+            checkKeystream(keystream, encrypter);
+            keystream.xor(src, srcOff, dst, dstOff, length);
+            return;
         }
-        return c;
+        byte[] o = state.getFeedback();
+        for (int offset = 0; offset < length; offset += blockSize) {
+            encrypter.encryptBlock(o, 0, o, 0);
+            Utility.xor(src, srcOff + offset, o, 0, dst, dstOff + offset, blockSize);
+        }
+        state.advance(length / blockSize);
+    }
+
+    @Override
+    public void apply(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        innerApplyReverseLogic(src, srcIndex, dst, dstIndex, length, blockSize, encrypter, state);
     }
 
     @Override
-    public byte[] reverse(byte[] src, int blockSize, SymmetricEncrypter encrypter) {
-        byte[][] split = Utility.splitToBlocks(src, blockSize);
-        byte[][] o = preprocess(split.length, encrypter);
-        byte[] m = new byte[src.length];
-        byte[] block;
-        for (int i = 0; i < split.length; ++i) {
-            block = Utility.xor(split[i], o[i]);
-            for (int j = 0; j < blockSize; ++j) {
-                m[blockSize * i + j] = block[j];
-            }
+    public void reverse(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        innerApplyReverseLogic(src, srcIndex, dst, dstIndex, length, blockSize, encrypter, state);
+    }
+
+    private void innerApplyReverseLogic(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        if (state instanceof KeystreamState keystream) {
+            checkKeystream(keystream, encrypter);
+            keystream.xor(src, srcIndex, dst, dstIndex, length);
+            return;
         }
-        return m;
+        byte[] o = state.getFeedback();
+        for (int offset = 0; offset < length; offset += blockSize) {
+            encrypter.encryptBlock(o, 0, o, 0);
+            Utility.xor(src, srcIndex + offset, o, 0, dst, dstIndex + offset, blockSize);
+        }
+        state.advance(length / blockSize);
     }
 
-    private byte[][] preprocess(int blocksCount, SymmetricEncrypter encrypter) {
-        byte[][] o = new byte[blocksCount][];
-        for (int i = 0; i < blocksCount; ++i) {
-            o[i] = encrypter.encrypt(i == 0 ? iv : o[i - 1]);
+    private static void checkKeystream(KeystreamState keystream, SymmetricEncrypter encrypter) {
+        if (!keystream.isGeneratedBy(encrypter)) {
+            throw new IllegalArgumentException("State with keystream generated ahead can only be used with the encrypter generating it!");
         }
-        return o;
+    }
+
+    private record KeystreamSource(SymmetricEncrypter encrypter, Executor executor, int bufferSize) {
     }
 
 }
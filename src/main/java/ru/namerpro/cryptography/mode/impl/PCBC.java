@@ -1,54 +1,112 @@
 package ru.namerpro.cryptography.mode.impl;
 
-import lombok.RequiredArgsConstructor;
-import ru.namerpro.cryptography.utils.Pair;
+import ru.namerpro.cryptography.api.symmetric.modes.ChainingState;
 import ru.namerpro.cryptography.utils.Utility;
-import ru.namerpro.cryptography.api.symmetric.modes.SymmetricEncryptMode;
 import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
-@RequiredArgsConstructor
-public class PCBC implements SymmetricEncryptMode {
+public class PCBC extends FeedbackMode {
 
-    private final ExecutorService service;
     private final byte[] iv;
 
+    public PCBC(ExecutorService service, byte[] iv) {
+        super(service);
+        this.iv = iv;
+    }
+
+    @Override
+    public ChainingState getInitialState(int blockSize) {
+        return new ChainingState(iv);
+    }
+
+    @Override
+    public void apply(byte[] src, int srcOff, byte[] dst, int dstOff, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        byte[] feedback = state.getFeedback();
+        for (int offset = 0; offset < length; offset += blockSize) {
+            if (offset == 0) {
+                Utility.xor(src, srcOff, feedback, 0, dst, dstOff, blockSize);
+            } else {
+                Utility.xor(src, srcOff + offset, src, srcOff + offset - blockSize, dst, dstOff + offset, blockSize);
+                Utility.xor(dst, dstOff + offset, dst, dstOff + offset - blockSize, dst, dstOff + offset, blockSize);
+            }
+            encrypter.encryptBlock(dst, dstOff + offset, dst, dstOff + offset);
+        }
+        if (length > 0) {
+            Utility.xor(src, srcOff + length - blockSize, dst, dstOff + length - blockSize, feedback, 0, blockSize);
+        }
+        state.advance(length / blockSize);
+    }
+
+    @Override
+    public void reverse(byte[] src, int srcOff, byte[] dst, int dstOff, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        byte[] feedback = state.getFeedback();
+        forEachBlockRange(length, blockSize, (from, to) ->
+                encrypter.decryptBlocks(src, srcOff + from * blockSize, dst, dstOff + from * blockSize, to - from));
+        for (int offset = 0; offset < length; offset += blockSize) {
+            if (offset == 0) {
+                Utility.xor(dst, dstOff, feedback, 0, dst, dstOff, blockSize);
+            } else {
+                Utility.xor(dst, dstOff + offset, dst, dstOff + offset - blockSize, dst, dstOff + offset, blockSize);
+                Utility.xor(dst, dstOff + offset, src, srcOff + offset - blockSize, dst, dstOff + offset, blockSize);
+            }
+        }
+        if (length > 0) {
+            Utility.xor(src, srcOff + length - blockSize, dst, dstOff + length - blockSize, feedback, 0, blockSize);
+        }
+        state.advance(length / blockSize);
+    }
+
     @Override
-    public byte[] apply(byte[] src, int blockSize, SymmetricEncrypter encrypter) {
-        byte[][] split = Utility.splitToBlocks(src, blockSize);
-        byte[] c = new byte[src.length];
-        byte[] prevC = { 0 };
-        for (int i = 0; i < split.length; ++i) {
-            prevC = encrypter.encrypt(Utility.xor(split[i], (i == 0 ? iv : Utility.xor(split[i - 1], prevC))));
-            for (int j = 0; j < blockSize; ++j) {
-                c[blockSize * i + j] = prevC[j];
+    public void apply(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        byte[] feedback = state.getFeedback();
+        for (int offset = 0; offset < length; offset += blockSize) {
+            if (offset == 0) {
+                Utility.xor(src, srcIndex, feedback, 0, dst, dstIndex, blockSize);
+            } else {
+                Utility.xor(src, srcIndex + offset, src, srcIndex + offset - blockSize, dst, dstIndex + offset, blockSize);
+                Utility.xor(dst, dstIndex + offset, dst, dstIndex + offset - blockSize, dst, dstIndex + offset, blockSize);
             }
+            encrypter.encryptBlock(dst, dstIndex + offset, dst, dstIndex + offset);
         }
-        return c;
+        if (length > 0) {
+            Utility.xor(src, srcIndex + length - blockSize, dst, dstIndex + length - blockSize, feedback, 0, blockSize);
+        }
+        state.advance(length / blockSize);
     }
 
     @Override
-    public byte[] reverse(byte[] src, int blockSize, SymmetricEncrypter encrypter) {
-        List<Pair<Integer, Future<byte[]>>> futures = new ArrayList<>();
-        byte[][] split = Utility.splitToBlocks(src, blockSize);
-        for (int i = 0; i < split.length; ++i) {
-            int finalI = i;
-            futures.add(Pair.of(i, service.submit(() -> encrypter.decrypt(split[finalI]))));
-        }
-        byte[][] decryptData = (byte[][]) Utility.queryResult(futures, blockSize, -1, true);
-        byte[] m = new byte[src.length];
-        byte[] prevM = { 0 };
-        for (int i = 0; i < decryptData.length; ++i) {
-            prevM = Utility.xor(decryptData[i], (i == 0 ? iv : Utility.xor(split[i - 1], prevM)));
-            for (int j = 0; j < blockSize; ++j) {
-                m[blockSize * i + j] = prevM[j];
+    public void reverse(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        byte[] feedback = state.getFeedback();
+        forEachBlockRange(length, blockSize, (from, to) -> {
+            for (int offset = from * blockSize; offset < to * blockSize; offset += blockSize) {
+                encrypter.decryptBlock(src, srcIndex + offset, dst, dstIndex + offset);
+            }
+        });
+        for (int offset = 0; offset < length; offset += blockSize) {
+            if (offset == 0) {
+                Utility.xor(dst, dstIndex, feedback, 0, dst, dstIndex, blockSize);
+            } else {
+                Utility.xor(dst, dstIndex + offset, dst, dstIndex + offset - blockSize, dst, dstIndex + offset, blockSize);
+                Utility.xor(dst, dstIndex + offset, src, srcIndex + offset - blockSize, dst, dstIndex + offset, blockSize);
             }
         }
-        return m;
+        if (length > 0) {
+            Utility.xor(src, srcIndex + length - blockSize, dst, dstIndex + length - blockSize, feedback, 0, blockSize);
+        }
+        state.advance(length / blockSize);
+    }
+
+    @Override
+    protected void enterLane(byte[] src, int srcOff, byte[] feedback, byte[] lanes, int laneOff, int blockSize) {
+        Utility.xor(src, srcOff, feedback, 0, lanes, laneOff, blockSize);
+    }
+
+    @Override
+    protected void leaveLane(byte[] src, int srcOff, byte[] lanes, int laneOff, byte[] dst, byte[] feedback, int blockSize) {
+        Utility.xor(src, srcOff, lanes, laneOff, feedback, 0, blockSize);
+        System.arraycopy(lanes, laneOff, dst, srcOff, blockSize);
     }
 
 }
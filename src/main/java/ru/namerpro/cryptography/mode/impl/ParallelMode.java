@@ -0,0 +1,50 @@
+package ru.namerpro.cryptography.mode.impl;
+
+import lombok.Getter;
+import ru.namerpro.cryptography.api.symmetric.modes.SymmetricEncryptMode;
+import ru.namerpro.cryptography.utils.Utility;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Base of the modes whose blocks can be processed independently. Blocks are handed to the service in ranges
+ * of about chunkSize bytes, so that one task does enough cipher work to outweigh its scheduling.
+ * At most parallelism ranges of one call run at the same time. This is only a cap per call: ranges of different
+ * calls are not interleaved or prioritised, so helpers of a large call already queued on a shared service still
+ * run ahead of a small call submitted after them.
+ */
+@Getter
+public abstract class ParallelMode implements SymmetricEncryptMode {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    private final ExecutorService service;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int parallelism = Integer.MAX_VALUE;
+
+    protected ParallelMode(ExecutorService service) {
+        this.service = service;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive, but " + chunkSize + " found!");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Integer.MAX_VALUE (default) lets the service decide.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive, but " + parallelism + " found!");
+        }
+        this.parallelism = parallelism;
+    }
+
+    protected void forEachBlockRange(int length, int blockSize, Utility.RangeTask task) {
+        Utility.runInParallel(service, length / blockSize, Math.max(chunkSize / blockSize, 1), parallelism, task);
+    }
+
+}
@@ -1,65 +1,151 @@
 package ru.namerpro.cryptography.mode.impl;
 
-import ru.namerpro.cryptography.utils.Pair;
-import ru.namerpro.cryptography.utils.Utility;
-import ru.namerpro.cryptography.api.symmetric.modes.SymmetricEncryptMode;
+import ru.namerpro.cryptography.api.symmetric.modes.ChainingState;
+import ru.namerpro.cryptography.api.symmetric.modes.SeekableMode;
 import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
 
-import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
-public class RD implements SymmetricEncryptMode {
+/**
+ * Mask of block i is initial + i * delta, where initial is the whole IV and delta is its second half, both
+ * read as unsigned big-endian numbers. Only the lowest blockSize bytes of the mask are XORed into the block,
+ * so the arithmetic is done modulo 2^(8 * blockSize) on little-endian arrays of long limbs.
+ * The original BigInteger implementation passed the higher bytes of the mask to the cipher as well, which made
+ * its output undecryptable unless they were zero. Its ciphertext is only reproduced for IVs whose first half
+ * is zero.
+ */
+public class RD extends ParallelMode implements SeekableMode {
 
-    private final ExecutorService service;
-    private final BigInteger initial;
-    private final BigInteger delta;
+    private final byte[] initial;
+    private final byte[] delta;
 
     public RD(ExecutorService service, byte[] iv) {
-        this.service = service;
+        super(service);
 
         int blockSize = iv.length / 2;
-        byte[] deltaAsByteArray = new byte[blockSize + 1];
-        byte[] initialAsByteArray = new byte[iv.length + 1];
-        for (int i = 1; i <= iv.length; ++i) {
-            if (i < deltaAsByteArray.length) {
-                deltaAsByteArray[i] = iv[i + blockSize - 1];
+        this.initial = iv.clone();
+        this.delta = Arrays.copyOfRange(iv, blockSize, 2 * blockSize);
+    }
+
+    @Override
+    public ChainingState getInitialState(int blockSize) {
+        return new ChainingState(null);
+    }
+
+    @Override
+    public void apply(byte[] src, int srcOff, byte[] dst, int dstOff, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        long firstBlockIndex = state.getBlockIndex();
+        long[] step = toLimbs(delta, blockSize);
+        forEachBlockRange(length, blockSize, (from, to) -> {
+            long[] value = getValue(firstBlockIndex + from, step, blockSize);
+            for (int offset = from * blockSize; offset < to * blockSize; offset += blockSize) {
+                System.arraycopy(src, srcOff + offset, dst, dstOff + offset, blockSize);
+                xorMask(value, dst, dstOff + offset, blockSize);
+                encrypter.encryptBlock(dst, dstOff + offset, dst, dstOff + offset);
+                add(value, step);
             }
-            initialAsByteArray[i] = iv[i - 1];
-        }
+        });
+        state.advance(length / blockSize);
+    }
 
-        this.delta = new BigInteger(deltaAsByteArray);
-        this.initial = new BigInteger(initialAsByteArray);
+    @Override
+    public void reverse(byte[] src, int srcOff, byte[] dst, int dstOff, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        long firstBlockIndex = state.getBlockIndex();
+        long[] step = toLimbs(delta, blockSize);
+        forEachBlockRange(length, blockSize, (from, to) -> {
+            long[] value = getValue(firstBlockIndex + from, step, blockSize);
+            for (int offset = from * blockSize; offset < to * blockSize; offset += blockSize) {
+                encrypter.decryptBlock(src, srcOff + offset, dst, dstOff + offset);
+                xorMask(value, dst, dstOff + offset, blockSize);
+                add(value, step);
+            }
+        });
+        state.advance(length / blockSize);
     }
 
     @Override
-    public byte[] apply(byte[] src, int blockSize, SymmetricEncrypter encrypter) {
-        List<Pair<Integer, Future<byte[]>>> futures = new ArrayList<>();
-        byte[][] split = Utility.splitToBlocks(src, blockSize);
-        BigInteger value = initial;
-        for (int i = 0; i < split.length; ++i) {
-            int finalI = i;
-            BigInteger finalValue = value;
-            futures.add(Pair.of(i, service.submit(() -> encrypter.encrypt(Utility.xor(Utility.toByteArray(finalValue), split[finalI])))));
-            value = value.add(delta);
-        }
-        return Utility.queryResult(futures, blockSize, src.length);
+    public void apply(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        long firstBlockIndex = state.getBlockIndex();
+        long[] step = toLimbs(delta, blockSize);
+        forEachBlockRange(length, blockSize, (from, to) -> {
+            long[] value = getValue(firstBlockIndex + from, step, blockSize);
+            for (int offset = from * blockSize; offset < to * blockSize; offset += blockSize) {
+                dst.put(dstIndex + offset, src, srcIndex + offset, blockSize);
+                xorMask(value, dst, dstIndex + offset, blockSize);
+                encrypter.encryptBlock(dst, dstIndex + offset, dst, dstIndex + offset);
+                add(value, step);
+            }
+        });
+        state.advance(length / blockSize);
     }
 
     @Override
-    public byte[] reverse(byte[] src, int blockSize, SymmetricEncrypter encrypter) {
-        List<Pair<Integer, Future<byte[]>>> futures = new ArrayList<>();
-        byte[][] split = Utility.splitToBlocks(src, blockSize);
-        BigInteger value = initial;
-        for (int i = 0; i < split.length; ++i) {
-            int finalI = i;
-            BigInteger finalValue = value;
-            futures.add(Pair.of(i, service.submit(() -> Utility.xor(encrypter.decrypt(split[finalI]), Utility.toByteArray(finalValue)))));
-            value = value.add(delta);
+    public void reverse(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex, int length, int blockSize, SymmetricEncrypter encrypter, ChainingState state) {
+        long firstBlockIndex = state.getBlockIndex();
+        long[] step = toLimbs(delta, blockSize);
+        forEachBlockRange(length, blockSize, (from, to) -> {
+            long[] value = getValue(firstBlockIndex + from, step, blockSize);
+            for (int offset = from * blockSize; offset < to * blockSize; offset += blockSize) {
+                encrypter.decryptBlock(src, srcIndex + offset, dst, dstIndex + offset);
+                xorMask(value, dst, dstIndex + offset, blockSize);
+                add(value, step);
+            }
+        });
+        state.advance(length / blockSize);
+    }
+
+    private long[] getValue(long blockIndex, long[] step, int blockSize) {
+        long[] value = toLimbs(initial, blockSize);
+        long[] product = new long[value.length];
+        long carry = 0;
+        for (int i = 0; i < step.length; ++i) {
+            long low = step[i] * blockIndex;
+            long high = Math.multiplyHigh(step[i], blockIndex) + (step[i] < 0 ? blockIndex : 0);
+            product[i] = low + carry;
+            carry = high + (Long.compareUnsigned(product[i], low) < 0 ? 1 : 0);
+        }
+        add(value, product);
+        return value;
+    }
+
+    /**
+     * @return lowest blockSize bytes of a big-endian number as little-endian limbs
+     */
+    private static long[] toLimbs(byte[] number, int blockSize) {
+        long[] limbs = new long[(blockSize + 7) / 8];
+        for (int k = 0; k < Math.min(blockSize, number.length); ++k) {
+            limbs[k >>> 3] |= (number[number.length - 1 - k] & 0xffL) << (8 * (k & 7));
+        }
+        return limbs;
+    }
+
+    private static void add(long[] value, long[] addend) {
+        long carry = 0;
+        for (int i = 0; i < value.length; ++i) {
+            long sum = value[i] + addend[i];
+            long nextCarry = Long.compareUnsigned(sum, value[i]) < 0 ? 1 : 0;
+            sum += carry;
+            if (sum == 0 && carry != 0) {
+                nextCarry = 1;
+            }
+            value[i] = sum;
+            carry = nextCarry;
+        }
+    }
+
+    private static void xorMask(long[] value, byte[] dst, int dstOff, int blockSize) {
+        for (int k = 0; k < blockSize; ++k) {
+            dst[dstOff + blockSize - 1 - k] ^= (byte) (value[k >>> 3] >>> (8 * (k & 7)));
+        }
+    }
+
+    private static void xorMask(long[] value, ByteBuffer dst, int dstIndex, int blockSize) {
+        for (int k = 0; k < blockSize; ++k) {
+            int index = dstIndex + blockSize - 1 - k;
+            dst.put(index, (byte) (dst.get(index) ^ (value[k >>> 3] >>> (8 * (k & 7)))));
         }
-        return Utility.queryResult(futures, blockSize, src.length);
     }
 
 }
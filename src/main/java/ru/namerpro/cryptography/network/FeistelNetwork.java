@@ -1,9 +1,11 @@
 package ru.namerpro.cryptography.network;
 
-import ru.namerpro.cryptography.utils.Utility;
+import ru.namerpro.cryptography.api.symmetric.networksfunctions.feistel.BatchFeistelFunction;
 import ru.namerpro.cryptography.api.symmetric.networksfunctions.feistel.FeistelFunction;
 import ru.namerpro.cryptography.api.symmetric.expansion.KeyExpansion;
 
+import java.util.Arrays;
+
 public class FeistelNetwork {
 
     private final FeistelFunction feistelFunction;
@@ -17,16 +19,93 @@ public class FeistelNetwork {
     }
 
     private byte[] run(byte[] block, boolean isEncrypt) {
-        byte[][] split = Utility.splitToBlocks(block, block.length / 2);
-        byte[] left = split[0];
-        byte[] right = split[1];
-        for (int i = 0; i < amountOfRounds - 1; ++i) {
-            byte[] newRightBlock = feistelFunction.runFeistelFunction(right, roundKeys[isEncrypt ? i : amountOfRounds - i - 1]);
-            newRightBlock = Utility.xor(newRightBlock, left);
-            left = right;
-            right = newRightBlock;
+        byte[] out = new byte[block.length];
+        run(block, 0, out, 0, block.length, 1, isEncrypt);
+        return out;
+    }
+
+    /**
+     * Runs blocksCount consecutive blocks through the network. Halves of up to 8 bytes are kept in long[]
+     * for all rounds, so only three arrays are allocated per call regardless of the amount of rounds.
+     */
+    private void run(byte[] src, int srcOff, byte[] dst, int dstOff, int blockSize, int blocksCount, boolean isEncrypt) {
+        int halfSize = blockSize / 2;
+        if (halfSize > Long.BYTES) {
+            for (int b = 0; b < blocksCount; ++b) {
+                runWide(src, srcOff + b * blockSize, dst, dstOff + b * blockSize, halfSize, isEncrypt);
+            }
+            return;
+        }
+        long[] left = new long[blocksCount];
+        long[] right = new long[blocksCount];
+        long[] f = new long[blocksCount];
+        for (int b = 0; b < blocksCount; ++b) {
+            left[b] = getHalf(src, srcOff + b * blockSize, halfSize);
+            right[b] = getHalf(src, srcOff + b * blockSize + halfSize, halfSize);
+        }
+        for (int i = 0; i < amountOfRounds; ++i) {
+            byte[] roundKey = roundKeys[isEncrypt ? i : amountOfRounds - i - 1];
+            if (feistelFunction instanceof BatchFeistelFunction batchFeistelFunction) {
+                batchFeistelFunction.runFeistelFunction(right, blocksCount, roundKey, f);
+            } else {
+                byte[] half = new byte[halfSize];
+                for (int b = 0; b < blocksCount; ++b) {
+                    putHalf(right[b], half, 0, halfSize);
+                    f[b] = getHalf(feistelFunction.runFeistelFunction(half, roundKey), 0, halfSize);
+                }
+            }
+            for (int b = 0; b < blocksCount; ++b) {
+                left[b] ^= f[b];
+            }
+            if (i < amountOfRounds - 1) {
+                long[] swap = left;
+                left = right;
+                right = swap;
+            }
+        }
+        for (int b = 0; b < blocksCount; ++b) {
+            putHalf(left[b], dst, dstOff + b * blockSize, halfSize);
+            putHalf(right[b], dst, dstOff + b * blockSize + halfSize, halfSize);
+        }
+    }
+
+    private void runWide(byte[] src, int srcOff, byte[] dst, int dstOff, int halfSize, boolean isEncrypt) {
+        byte[] left = Arrays.copyOfRange(src, srcOff, srcOff + halfSize);
+        byte[] right = Arrays.copyOfRange(src, srcOff + halfSize, srcOff + 2 * halfSize);
+        for (int i = 0; i < amountOfRounds; ++i) {
+            byte[] f = feistelFunction.runFeistelFunction(right, roundKeys[isEncrypt ? i : amountOfRounds - i - 1]);
+            for (int j = 0; j < halfSize; ++j) {
+                left[j] ^= f[j];
+            }
+            if (i < amountOfRounds - 1) {
+                byte[] swap = left;
+                left = right;
+                right = swap;
+            }
+        }
+        System.arraycopy(left, 0, dst, dstOff, halfSize);
+        System.arraycopy(right, 0, dst, dstOff + halfSize, halfSize);
+    }
+
+    private static long getHalf(byte[] src, int srcOff, int halfSize) {
+        long result = 0;
+        for (int i = 0; i < halfSize; ++i) {
+            result = (result << 8) | (src[srcOff + i] & 0xFF);
+        }
+        return result;
+    }
+
+    private static void putHalf(long half, byte[] dst, int dstOff, int halfSize) {
+        for (int i = halfSize - 1; i >= 0; --i) {
+            dst[dstOff + i] = (byte) half;
+            half >>>= 8;
+        }
+    }
+
+    public void wipe() {
+        for (byte[] roundKey : roundKeys) {
+            Arrays.fill(roundKey, (byte) 0);
         }
-        return Utility.glue(Utility.xor(feistelFunction.runFeistelFunction(right, roundKeys[isEncrypt ? amountOfRounds - 1 : 0]), left), right);
     }
 
     public byte[] encrypt(byte[] block) {
@@ -37,4 +116,20 @@ public class FeistelNetwork {
         return run(block, false);
     }
 
+    public void encrypt(byte[] src, int srcOff, byte[] dst, int dstOff, int blockSize) {
+        run(src, srcOff, dst, dstOff, blockSize, 1, true);
+    }
+
+    public void decrypt(byte[] src, int srcOff, byte[] dst, int dstOff, int blockSize) {
+        run(src, srcOff, dst, dstOff, blockSize, 1, false);
+    }
+
+    public void encrypt(byte[] src, int srcOff, byte[] dst, int dstOff, int blockSize, int blocksCount) {
+        run(src, srcOff, dst, dstOff, blockSize, blocksCount, true);
+    }
+
+    public void decrypt(byte[] src, int srcOff, byte[] dst, int dstOff, int blockSize, int blocksCount) {
+        run(src, srcOff, dst, dstOff, blockSize, blocksCount, false);
+    }
+
 }
@@ -0,0 +1,107 @@
+package ru.namerpro.cryptography.permutaion;
+
+import lombok.Getter;
+
+/**
+ * Permutation of a fixed-width input compiled into byte-wise lookup tables: for every input byte position
+ * there are 256 OR-masks of the output, so applying it costs one lookup per input byte.
+ * Input and output are big-endian numbers of inputBitsCount and outputBitsCount bits respectively.
+ */
+@Getter
+public class CompiledPermutation {
+
+    private static final int BYTE_VALUES = 256;
+
+    private final int inputBitsCount;
+    private final int outputBitsCount;
+    private final int inputBytesCount;
+    private final int outputBytesCount;
+    private final int outputWordsCount;
+    private final long[][] masks;
+
+    CompiledPermutation(int[] pBlock, Permutation.Rule rule, int inputBitsCount) {
+        if (inputBitsCount <= 0) {
+            throw new IllegalArgumentException("Input width must be positive, but " + inputBitsCount + " found!");
+        }
+        this.inputBitsCount = inputBitsCount;
+        this.outputBitsCount = pBlock.length;
+        this.inputBytesCount = (inputBitsCount + 7) / 8;
+        this.outputBytesCount = (outputBitsCount + 7) / 8;
+        this.outputWordsCount = Math.max((outputBitsCount + 63) / 64, 1);
+        this.masks = new long[inputBytesCount][BYTE_VALUES * outputWordsCount];
+
+        boolean isFirstOne = rule == Permutation.Rule.FROM_LEFT_FIRST_IS_ONE || rule == Permutation.Rule.FROM_RIGHT_FIRST_IS_ONE;
+        boolean isFromLeft = rule == Permutation.Rule.FROM_LEFT_FIRST_IS_ONE || rule == Permutation.Rule.FROM_LEFT_FIRST_IS_ZERO;
+        for (int i = 0; i < outputBitsCount; ++i) {
+            int bitIndex = isFirstOne ? pBlock[i] - 1 : pBlock[i];
+            if (bitIndex >= inputBitsCount || bitIndex < 0) {
+                throw new IndexOutOfBoundsException("Wrong pBlock: one of numbers of pBlock is beyond number length!");
+            }
+            int inputPosition = isFromLeft ? inputBitsCount - 1 - bitIndex : bitIndex;
+            int inputByte = inputBytesCount - 1 - inputPosition / 8;
+            int inputBit = inputPosition % 8;
+            int outputPosition = outputBitsCount - 1 - i;
+            int word = outputPosition / 64;
+            long bit = 1L << (outputPosition % 64);
+            for (int value = 0; value < BYTE_VALUES; ++value) {
+                if ((value & (1 << inputBit)) != 0) {
+                    masks[inputByte][value * outputWordsCount + word] |= bit;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the permutation to the lowest inputBitsCount bits of input. Both widths must not exceed 64 bits.
+     */
+    public long apply(long input) {
+        if (inputBitsCount > 64 || outputBitsCount > 64) {
+            throw new IllegalArgumentException("long entry point supports permutations of at most 64 bits, but " + inputBitsCount + " -> " + outputBitsCount + " found!");
+        }
+        long result = 0;
+        for (int i = 0; i < inputBytesCount; ++i) {
+            result |= masks[i][(int) (input >>> (8 * (inputBytesCount - 1 - i))) & 0xff];
+        }
+        return result;
+    }
+
+    public byte[] apply(byte[] input) {
+        if (input.length != inputBytesCount) {
+            throw new IllegalArgumentException("Input of " + inputBytesCount + " bytes expected, but " + input.length + " found!");
+        }
+        byte[] output = new byte[outputBytesCount];
+        apply(input, 0, output, 0);
+        return output;
+    }
+
+    /**
+     * Reads inputBytesCount bytes from src at srcOff and writes outputBytesCount bytes to dst at dstOff.
+     */
+    public void apply(byte[] src, int srcOff, byte[] dst, int dstOff) {
+        if (outputWordsCount == 1) {
+            long result = 0;
+            for (int i = 0; i < inputBytesCount; ++i) {
+                result |= masks[i][src[srcOff + i] & 0xff];
+            }
+            putWord(result, 0, dst, dstOff);
+            return;
+        }
+        long[] result = new long[outputWordsCount];
+        for (int i = 0; i < inputBytesCount; ++i) {
+            int base = (src[srcOff + i] & 0xff) * outputWordsCount;
+            for (int word = 0; word < outputWordsCount; ++word) {
+                result[word] |= masks[i][base + word];
+            }
+        }
+        for (int word = 0; word < outputWordsCount; ++word) {
+            putWord(result[word], word, dst, dstOff);
+        }
+    }
+
+    private void putWord(long word, int wordIndex, byte[] dst, int dstOff) {
+        for (int k = 8 * wordIndex; k < Math.min(8 * wordIndex + 8, outputBytesCount); ++k) {
+            dst[dstOff + outputBytesCount - 1 - k] = (byte) (word >>> (8 * (k - 8 * wordIndex)));
+        }
+    }
+
+}
@@ -28,6 +28,14 @@ public class Permutation {
         return output;
     }
 
+    /**
+     * Compiles pBlock and rule for inputs of exactly inputBitsCount bits into a reusable permutation,
+     * which gives the same result as rearrange with the leading zeros of such input counted.
+     */
+    public static CompiledPermutation compile(int[] pBlock, Rule rule, int inputBitsCount) {
+        return new CompiledPermutation(pBlock, rule, inputBitsCount);
+    }
+
     public static byte[] rearrange(byte[] input, int[] pBlock, Rule rule) {
         return rearrange(input, (byte) 0, pBlock, rule);
     }
@@ -64,7 +72,7 @@ public class Permutation {
     }
 
     private static int getOutputArraySize(int bitsInOutputCount, int firstOutputBlockSize) {
-        return bitsInOutputCount / 8 + firstOutputBlockSize > 0 ? 1 : 0;
+        return bitsInOutputCount / 8 + (firstOutputBlockSize > 0 ? 1 : 0);
     }
 
     private static byte getTakenBit(byte[] input, Rule rule, int bitIndex, int leadingPosition) {
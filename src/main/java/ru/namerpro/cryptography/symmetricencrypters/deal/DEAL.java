@@ -8,6 +8,7 @@ import ru.namerpro.cryptography.utils.Utility;
 
 public class DEAL implements SymmetricEncrypter, KeyExpansion {
 
+    private static final int BLOCK_SIZE = 16;
     private final DES des;
     private final FeistelNetwork feistelNetwork;
 
@@ -29,6 +30,36 @@ public class DEAL implements SymmetricEncrypter, KeyExpansion {
         return feistelNetwork.decrypt(block);
     }
 
+    @Override
+    public int getBlockSize() {
+        return BLOCK_SIZE;
+    }
+
+    @Override
+    public void encryptBlock(byte[] src, int srcOff, byte[] dst, int dstOff) {
+        feistelNetwork.encrypt(src, srcOff, dst, dstOff, BLOCK_SIZE);
+    }
+
+    @Override
+    public void decryptBlock(byte[] src, int srcOff, byte[] dst, int dstOff) {
+        feistelNetwork.decrypt(src, srcOff, dst, dstOff, BLOCK_SIZE);
+    }
+
+    @Override
+    public void encryptBlocks(byte[] src, int srcOff, byte[] dst, int dstOff, int blocksCount) {
+        feistelNetwork.encrypt(src, srcOff, dst, dstOff, BLOCK_SIZE, blocksCount);
+    }
+
+    @Override
+    public void decryptBlocks(byte[] src, int srcOff, byte[] dst, int dstOff, int blocksCount) {
+        feistelNetwork.decrypt(src, srcOff, dst, dstOff, BLOCK_SIZE, blocksCount);
+    }
+
+    @Override
+    public void wipe() {
+        feistelNetwork.wipe();
+    }
+
     @Override
     public byte[][] expandKey(byte[] keys) {
         byte[][] split = Utility.splitToBlocks(keys, 8);
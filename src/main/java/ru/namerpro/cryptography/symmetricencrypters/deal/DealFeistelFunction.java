@@ -1,11 +1,11 @@
 package ru.namerpro.cryptography.symmetricencrypters.deal;
 
 import lombok.RequiredArgsConstructor;
-import ru.namerpro.cryptography.api.symmetric.networksfunctions.feistel.FeistelFunction;
+import ru.namerpro.cryptography.api.symmetric.networksfunctions.feistel.BatchFeistelFunction;
 import ru.namerpro.cryptography.symmetricencrypters.des.DES;
 
 @RequiredArgsConstructor
-public class DealFeistelFunction implements FeistelFunction {
+public class DealFeistelFunction implements BatchFeistelFunction {
 
     private final DES des;
 
@@ -14,4 +14,11 @@ public class DealFeistelFunction implements FeistelFunction {
         return des.encrypt(block);
     }
 
+    @Override
+    public void runFeistelFunction(long[] halves, int count, byte[] roundKey, long[] results) {
+        for (int i = 0; i < count; ++i) {
+            results[i] = des.encrypt(halves[i]);
+        }
+    }
+
 }
@@ -1,18 +1,27 @@
 package ru.namerpro.cryptography.symmetricencrypters.des;
 
-import ru.namerpro.cryptography.api.symmetric.networksfunctions.feistel.FeistelFunction;
+import ru.namerpro.cryptography.api.symmetric.networksfunctions.feistel.BatchFeistelFunction;
 import ru.namerpro.cryptography.api.symmetric.expansion.KeyExpansion;
 import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
-import ru.namerpro.cryptography.network.FeistelNetwork;
+import ru.namerpro.cryptography.permutaion.CompiledPermutation;
 import ru.namerpro.cryptography.permutaion.Permutation;
+import ru.namerpro.cryptography.utils.Utility;
 
-public class DES implements SymmetricEncrypter, KeyExpansion, FeistelFunction {
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 
+public class DES implements SymmetricEncrypter, KeyExpansion, BatchFeistelFunction {
+
+    private static final int BLOCK_SIZE = 8;
+    private static final int ROUNDS_COUNT = 16;
     private static final int B_BLOCK_COUNT = 8;
-    private static final int BITS_IN_ONE_B_BLOCK = 6;
     private static final int FIRST_SIX_BITS_MASK = 63;
-    private final int[] expansionFunction = { 32, 1, 2, 3, 4, 5, 4, 5, 6, 7, 8, 9, 8, 9, 10, 11, 12, 13, 12, 13, 14, 15, 16, 17, 16, 17, 18, 19, 20, 21, 20, 21, 22, 23, 24, 25, 24, 25, 26, 27, 28, 29, 28, 29, 30, 31, 32, 1 };
-    private final byte[][][] sTables = {
+    /**
+     * Amount of blocks whose rounds {@link #encryptBlocks(byte[], int, byte[], int, int)} interleaves.
+     */
+    private static final int LANES = 4;
+    private static final byte[][][] sTables = {
             {
                     { 14, 4, 13, 1, 2, 15, 11, 8, 3, 10, 6, 12, 5, 9, 0, 7 },
                     { 0, 15, 7, 4, 14, 2, 13, 1, 10, 6, 12, 11, 9, 5, 3, 8 },
@@ -62,56 +71,195 @@ public class DES implements SymmetricEncrypter, KeyExpansion, FeistelFunction {
                     { 2, 1, 14, 7, 4, 10, 8, 13, 15, 12, 9, 0, 3, 5, 6, 11 }
             }
     };
-    private final int[] conclusionPermutation = { 16, 7, 20, 21, 29, 12, 28, 17, 1, 15, 23, 26, 5, 18, 31, 10, 2, 8, 24, 14, 32, 27, 3, 9, 19, 13, 30, 6, 22, 11, 4, 25 };
-    private final int[] expandedKeyInitialPermutationPartOne = { 57, 49, 41, 33, 25, 17, 9, 1, 58, 50, 42, 34, 26, 18, 10, 2, 59, 51, 43, 35, 27, 19, 11, 3, 60, 52, 44, 36};
-    private final int[] expandedKeyInitialPermutationPartTwo = { 63, 55, 47, 39, 31, 23, 15, 7, 62, 54, 46, 38, 30, 22, 14, 6, 61, 53, 45, 37, 29, 21, 13, 5, 28, 20, 12, 4 };
-    private final int[] cdToRoundKeyPermutation = { 14, 17, 11, 24, 1, 5, 3, 28, 15, 6, 21, 10, 23, 19, 12, 4, 26, 8, 16, 7, 27, 20, 13, 2, 41, 52, 31, 37, 47, 55, 30, 40, 51, 45, 33, 48, 44, 49, 39, 56, 34, 53, 46, 42, 50, 36, 29, 32 };
-    private final int[] desInitialPermutation = { 58, 50, 42, 34, 26, 18, 10, 2, 60, 52, 44, 36, 28, 20, 12, 4, 62, 54, 46, 38, 30, 22, 14, 6, 64, 56, 48, 40, 32, 24, 16, 8, 57, 49, 41, 33, 25, 17, 9, 1, 59, 51, 43, 35, 27, 19, 11, 3, 61, 53, 45, 37, 29, 21, 13, 5, 63, 55, 47, 39, 31, 23, 15, 7 };
-    private final int[] desConclusivePermutation = { 40, 8, 48, 16, 56, 24, 64, 32, 39, 7, 47, 15, 55, 23, 63, 31, 38, 6, 46, 14, 54, 22, 62, 30, 37, 5, 45, 13, 53, 21, 61, 29, 36, 4, 44, 12, 52, 20, 60, 28, 35, 3, 43, 11, 51, 19, 59, 27, 34, 2, 42, 10, 50, 18, 58, 26, 33, 1, 41, 9, 49, 17, 57, 25 };
-    private final FeistelNetwork feistelNetwork;
+    private static final int[] conclusionPermutation = { 16, 7, 20, 21, 29, 12, 28, 17, 1, 15, 23, 26, 5, 18, 31, 10, 2, 8, 24, 14, 32, 27, 3, 9, 19, 13, 30, 6, 22, 11, 4, 25 };
+    private static final int[] expandedKeyInitialPermutationPartOne = { 57, 49, 41, 33, 25, 17, 9, 1, 58, 50, 42, 34, 26, 18, 10, 2, 59, 51, 43, 35, 27, 19, 11, 3, 60, 52, 44, 36};
+    private static final int[] expandedKeyInitialPermutationPartTwo = { 63, 55, 47, 39, 31, 23, 15, 7, 62, 54, 46, 38, 30, 22, 14, 6, 61, 53, 45, 37, 29, 21, 13, 5, 28, 20, 12, 4 };
+    private static final int[] cdToRoundKeyPermutation = { 14, 17, 11, 24, 1, 5, 3, 28, 15, 6, 21, 10, 23, 19, 12, 4, 26, 8, 16, 7, 27, 20, 13, 2, 41, 52, 31, 37, 47, 55, 30, 40, 51, 45, 33, 48, 44, 49, 39, 56, 34, 53, 46, 42, 50, 36, 29, 32 };
+    private static final int[] desInitialPermutation = { 58, 50, 42, 34, 26, 18, 10, 2, 60, 52, 44, 36, 28, 20, 12, 4, 62, 54, 46, 38, 30, 22, 14, 6, 64, 56, 48, 40, 32, 24, 16, 8, 57, 49, 41, 33, 25, 17, 9, 1, 59, 51, 43, 35, 27, 19, 11, 3, 61, 53, 45, 37, 29, 21, 13, 5, 63, 55, 47, 39, 31, 23, 15, 7 };
+    private static final int[] desConclusivePermutation = { 40, 8, 48, 16, 56, 24, 64, 32, 39, 7, 47, 15, 55, 23, 63, 31, 38, 6, 46, 14, 54, 22, 62, 30, 37, 5, 45, 13, 53, 21, 61, 29, 36, 4, 44, 12, 52, 20, 60, 28, 35, 3, 43, 11, 51, 19, 59, 27, 34, 2, 42, 10, 50, 18, 58, 26, 33, 1, 41, 9, 49, 17, 57, 25 };
+    private static final DESTables tables = new DESTables(sTables, conclusionPermutation, desInitialPermutation, desConclusivePermutation);
+    private static final CompiledPermutation expandedKeyInitialPermutationPartOneCompiled = Permutation.compile(expandedKeyInitialPermutationPartOne, Permutation.Rule.FROM_LEFT_FIRST_IS_ONE, 64);
+    private static final CompiledPermutation expandedKeyInitialPermutationPartTwoCompiled = Permutation.compile(expandedKeyInitialPermutationPartTwo, Permutation.Rule.FROM_LEFT_FIRST_IS_ONE, 64);
+    private static final CompiledPermutation cdToRoundKeyPermutationCompiled = Permutation.compile(cdToRoundKeyPermutation, Permutation.Rule.FROM_LEFT_FIRST_IS_ONE, 56);
+    private final long[] roundKeys = new long[ROUNDS_COUNT];
 
     public DES(byte[] key) {
-        if (key.length != 8) {
+        if (key.length != BLOCK_SIZE) {
             throw new IllegalArgumentException("Wrong key size provided! Expected 64 bits (8 bytes).");
         }
-        this.feistelNetwork = new FeistelNetwork(this,  key,this, 16);
+        byte[][] expandedKey = expandKey(key);
+        for (int i = 0; i < ROUNDS_COUNT; ++i) {
+            roundKeys[i] = toLong48(expandedKey[i]);
+        }
     }
 
     @Override
     public byte[] encrypt(byte[] block) {
-        byte[] permutatedBlock = Permutation.rearrange(block, getLeadingZeros(block[0]), desInitialPermutation, Permutation.Rule.FROM_LEFT_FIRST_IS_ONE);
-        byte[] encryptedBlock = feistelNetwork.encrypt(permutatedBlock);
-        return Permutation.rearrange(encryptedBlock, getLeadingZeros(encryptedBlock[0]), desConclusivePermutation, Permutation.Rule.FROM_LEFT_FIRST_IS_ONE);
+        byte[] out = new byte[BLOCK_SIZE];
+        encryptBlock(block, 0, out, 0);
+        return out;
     }
 
     @Override
     public byte[] decrypt(byte[] block) {
-        byte[] permutatedBlock = Permutation.rearrange(block, getLeadingZeros(block[0]), desInitialPermutation, Permutation.Rule.FROM_LEFT_FIRST_IS_ONE);
-        byte[] decryptedBlock = feistelNetwork.decrypt(permutatedBlock);
-        return Permutation.rearrange(decryptedBlock, getLeadingZeros(decryptedBlock[0]), desConclusivePermutation, Permutation.Rule.FROM_LEFT_FIRST_IS_ONE);
+        byte[] out = new byte[BLOCK_SIZE];
+        decryptBlock(block, 0, out, 0);
+        return out;
+    }
+
+    @Override
+    public int getBlockSize() {
+        return BLOCK_SIZE;
+    }
+
+    @Override
+    public void wipe() {
+        Arrays.fill(roundKeys, 0);
+    }
+
+    public long encrypt(long block) {
+        return run(block, true);
+    }
+
+    public long decrypt(long block) {
+        return run(block, false);
+    }
+
+    @Override
+    public void encryptBlock(byte[] src, int srcOff, byte[] dst, int dstOff) {
+        putLong(run(getLong(src, srcOff), true), dst, dstOff);
+    }
+
+    @Override
+    public void decryptBlock(byte[] src, int srcOff, byte[] dst, int dstOff) {
+        putLong(run(getLong(src, srcOff), false), dst, dstOff);
+    }
+
+    @Override
+    public void encryptBlock(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex) {
+        putLong(run(getLong(src, srcIndex), true), dst, dstIndex);
+    }
+
+    @Override
+    public void decryptBlock(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex) {
+        putLong(run(getLong(src, srcIndex), false), dst, dstIndex);
+    }
+
+    /**
+     * Runs groups of {@link #LANES} blocks through every round together, so S-box lookups of independent blocks
+     * overlap.
+     */
+    @Override
+    public void encryptBlocks(byte[] src, int srcOff, byte[] dst, int dstOff, int blocksCount) {
+        runBlocks(src, srcOff, dst, dstOff, blocksCount, true);
+    }
+
+    @Override
+    public void decryptBlocks(byte[] src, int srcOff, byte[] dst, int dstOff, int blocksCount) {
+        runBlocks(src, srcOff, dst, dstOff, blocksCount, false);
     }
 
     @Override
     public byte[] runFeistelFunction(byte[] block, byte[] roundKey) {
-        byte[] expandedBlock = Permutation.rearrange(block, getLeadingZeros(block[0]), expansionFunction, Permutation.Rule.FROM_LEFT_FIRST_IS_ONE);
-        long xor = toLong48(expandedBlock) ^ toLong48(roundKey);
-        byte bi;
-        byte[] result = new byte[4];
+        return Utility.toByteArray(feistelFunction(toInt(block), toLong48(roundKey)));
+    }
+
+    @Override
+    public void runFeistelFunction(long[] halves, int count, byte[] roundKey, long[] results) {
+        long key = toLong48(roundKey);
+        for (int i = 0; i < count; ++i) {
+            results[i] = feistelFunction((int) halves[i], key) & 0xFFFFFFFFL;
+        }
+    }
+
+    private long run(long block, boolean isEncrypt) {
+        long permutatedBlock = tables.initialPermutation.apply(block);
+        int left = (int) (permutatedBlock >>> 32);
+        int right = (int) permutatedBlock;
+        for (int round = 0; round < ROUNDS_COUNT; ++round) {
+            int temp = right;
+            right = left ^ feistelFunction(right, roundKeys[isEncrypt ? round : ROUNDS_COUNT - 1 - round]);
+            left = temp;
+        }
+        return tables.conclusivePermutation.apply(((long) right << 32) | (left & 0xFFFFFFFFL));
+    }
+
+    private void runBlocks(byte[] src, int srcOff, byte[] dst, int dstOff, int blocksCount, boolean isEncrypt) {
+        int i = 0;
+        for (; i + LANES <= blocksCount; i += LANES) {
+            int offset = srcOff + i * BLOCK_SIZE;
+            long block0 = tables.initialPermutation.apply(getLong(src, offset));
+            long block1 = tables.initialPermutation.apply(getLong(src, offset + BLOCK_SIZE));
+            long block2 = tables.initialPermutation.apply(getLong(src, offset + 2 * BLOCK_SIZE));
+            long block3 = tables.initialPermutation.apply(getLong(src, offset + 3 * BLOCK_SIZE));
+            int left0 = (int) (block0 >>> 32);
+            int left1 = (int) (block1 >>> 32);
+            int left2 = (int) (block2 >>> 32);
+            int left3 = (int) (block3 >>> 32);
+            int right0 = (int) block0;
+            int right1 = (int) block1;
+            int right2 = (int) block2;
+            int right3 = (int) block3;
+            for (int round = 0; round < ROUNDS_COUNT; ++round) {
+                long roundKey = roundKeys[isEncrypt ? round : ROUNDS_COUNT - 1 - round];
+                int temp0 = right0;
+                int temp1 = right1;
+                int temp2 = right2;
+                int temp3 = right3;
+                right0 = left0 ^ feistelFunction(right0, roundKey);
+                right1 = left1 ^ feistelFunction(right1, roundKey);
+                right2 = left2 ^ feistelFunction(right2, roundKey);
+                right3 = left3 ^ feistelFunction(right3, roundKey);
+                left0 = temp0;
+                left1 = temp1;
+                left2 = temp2;
+                left3 = temp3;
+            }
+            offset = dstOff + i * BLOCK_SIZE;
+            putLong(tables.conclusivePermutation.apply(((long) right0 << 32) | (left0 & 0xFFFFFFFFL)), dst, offset);
+            putLong(tables.conclusivePermutation.apply(((long) right1 << 32) | (left1 & 0xFFFFFFFFL)), dst, offset + BLOCK_SIZE);
+            putLong(tables.conclusivePermutation.apply(((long) right2 << 32) | (left2 & 0xFFFFFFFFL)), dst, offset + 2 * BLOCK_SIZE);
+            putLong(tables.conclusivePermutation.apply(((long) right3 << 32) | (left3 & 0xFFFFFFFFL)), dst, offset + 3 * BLOCK_SIZE);
+        }
+        for (; i < blocksCount; ++i) {
+            putLong(run(getLong(src, srcOff + i * BLOCK_SIZE), isEncrypt), dst, dstOff + i * BLOCK_SIZE);
+        }
+    }
+
+    /**
+     * E expansion is done by rotations: S-box i takes bits 4i..4i+5 of the half block (bit 0 being bit 32).
+     */
+    private static int feistelFunction(int block, long roundKey) {
+        int result = 0;
         for (int i = 0; i < B_BLOCK_COUNT; ++i) {
-            bi = (byte) ((xor >>> (BITS_IN_ONE_B_BLOCK * i)) & FIRST_SIX_BITS_MASK);
-            int j = B_BLOCK_COUNT - i - 1;
-            byte replacement = sTables[j][getRow(bi)][getColumn(bi)];
-            result[j / 2] |= j % 2 == 0 ? (byte) (replacement << 4) : replacement;
+            int x = (Integer.rotateRight(block, 27 - 4 * i) ^ (int) (roundKey >>> (42 - 6 * i))) & FIRST_SIX_BITS_MASK;
+            result |= tables.spBoxes[i][x];
+        }
+        return result;
+    }
+
+    private static long getLong(byte[] src, int srcOff) {
+        long result = 0;
+        for (int i = 0; i < BLOCK_SIZE; ++i) {
+            result = (result << 8) | (src[srcOff + i] & 0xFF);
         }
-        return Permutation.rearrange(result, getLeadingZeros(result[0]), conclusionPermutation, Permutation.Rule.FROM_LEFT_FIRST_IS_ONE);
+        return result;
     }
 
-    private byte getRow(byte x) {
-        return (byte) (x & 1 | (((x & 32) >>> 4) & 2));
+    private static long getLong(ByteBuffer src, int srcIndex) {
+        long value = src.getLong(srcIndex);
+        return src.order() == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value);
     }
 
-    private byte getColumn(byte x) {
-        return (byte) ((x & 31) >>> 1);
+    private static void putLong(long value, ByteBuffer dst, int dstIndex) {
+        dst.putLong(dstIndex, dst.order() == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value));
+    }
+
+    private static void putLong(long value, byte[] dst, int dstOff) {
+        for (int i = BLOCK_SIZE - 1; i >= 0; --i) {
+            dst[dstOff + i] = (byte) value;
+            value >>>= 8;
+        }
     }
 
     private int toInt(byte[] arr) {
@@ -122,14 +270,6 @@ public class DES implements SymmetricEncrypter, KeyExpansion, FeistelFunction {
         return (arr[5] & 0xFF) | ((arr[4] & 0xFF) << 8L) | ((arr[3] & 0xFF) << 16L) | ((long) (arr[2] & 0xFF) << 24L) | ((long) (arr[1] & 0xFF) << 32L) | ((long) (arr[0] & 0xFF) << 40L);
     }
 
-    private byte getLeadingZeros(byte x) {
-        if (x == 0) {
-            return 8;
-        } else {
-            return (byte) (7 - Integer.numberOfTrailingZeros(Integer.highestOneBit(x & 0xFF)));
-        }
-    }
-
     private int cycledShiftLeft(int x, int y) {
         int takenBits = (x & (((1 << y) - 1) << (28 - y))) >> (28 - y);
         return ((x << y) | takenBits) & ((1 << 28) - 1);
@@ -153,15 +293,15 @@ public class DES implements SymmetricEncrypter, KeyExpansion, FeistelFunction {
 
     @Override
     public byte[][] expandKey(byte[] key) {
-        int c = toInt(Permutation.rearrange(key, getLeadingZeros(key[0]), expandedKeyInitialPermutationPartOne, Permutation.Rule.FROM_LEFT_FIRST_IS_ONE));
-        int d = toInt(Permutation.rearrange(key, getLeadingZeros(key[0]), expandedKeyInitialPermutationPartTwo, Permutation.Rule.FROM_LEFT_FIRST_IS_ONE));
+        long block = getLong(key, 0);
+        int c = (int) expandedKeyInitialPermutationPartOneCompiled.apply(block);
+        int d = (int) expandedKeyInitialPermutationPartTwoCompiled.apply(block);
         byte[][] roundKeys = new byte[16][];
         for (int i = 1; i <= 16; ++i) {
             int moveAmount = (i == 1 || i == 2 || i == 9 || i == 16 ? 1 : 2);
             c = cycledShiftLeft(c, moveAmount);
             d = cycledShiftLeft(d, moveAmount);
-            byte[] cd = toByteArray56(glue28(c, d));
-            roundKeys[i - 1] = Permutation.rearrange(cd, getLeadingZeros(cd[0]), cdToRoundKeyPermutation, Permutation.Rule.FROM_LEFT_FIRST_IS_ONE);
+            roundKeys[i - 1] = cdToRoundKeyPermutationCompiled.apply(toByteArray56(glue28(c, d)));
         }
         return roundKeys;
     }
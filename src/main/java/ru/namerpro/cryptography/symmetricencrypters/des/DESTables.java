@@ -0,0 +1,32 @@
+package ru.namerpro.cryptography.symmetricencrypters.des;
+
+import ru.namerpro.cryptography.permutaion.CompiledPermutation;
+import ru.namerpro.cryptography.permutaion.Permutation;
+
+/**
+ * Lookup tables of the 64-bit DES core: S-boxes combined with the P permutation (one table per S-box,
+ * indexed by its 6-bit input) and compiled initial and final permutations.
+ */
+class DESTables {
+
+    private static final int S_BOX_COUNT = 8;
+    private static final int S_BOX_INPUTS = 64;
+
+    final int[][] spBoxes = new int[S_BOX_COUNT][S_BOX_INPUTS];
+    final CompiledPermutation initialPermutation;
+    final CompiledPermutation conclusivePermutation;
+
+    DESTables(byte[][][] sTables, int[] conclusionPermutation, int[] desInitialPermutation, int[] desConclusivePermutation) {
+        CompiledPermutation p = Permutation.compile(conclusionPermutation, Permutation.Rule.FROM_LEFT_FIRST_IS_ONE, 32);
+        for (int box = 0; box < S_BOX_COUNT; ++box) {
+            for (int x = 0; x < S_BOX_INPUTS; ++x) {
+                int row = ((x >>> 4) & 2) | (x & 1);
+                int column = (x >>> 1) & 15;
+                spBoxes[box][x] = (int) p.apply((long) sTables[box][row][column] << (28 - 4 * box));
+            }
+        }
+        this.initialPermutation = Permutation.compile(desInitialPermutation, Permutation.Rule.FROM_LEFT_FIRST_IS_ONE, 64);
+        this.conclusivePermutation = Permutation.compile(desConclusivePermutation, Permutation.Rule.FROM_LEFT_FIRST_IS_ONE, 64);
+    }
+
+}
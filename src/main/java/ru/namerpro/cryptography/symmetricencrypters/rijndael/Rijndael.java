@@ -3,15 +3,24 @@ package ru.namerpro.cryptography.symmetricencrypters.rijndael;
 import org.apache.commons.lang3.tuple.Triple;
 import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
 import ru.namerpro.cryptography.api.symmetric.expansion.KeyExpansion;
-import ru.namerpro.cryptography.utils.Lazy;
 import ru.namerpro.cryptography.utils.Utility;
 import ru.namerpro.cryptography.utils.stateless.CryptoGF;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
 public class Rijndael implements SymmetricEncrypter, KeyExpansion {
 
     private static final int ROWS_COUNT = 4;
-    private final Lazy<byte[][]> sBox;
-    private final Lazy<byte[][]> sBoxInv;
+    /**
+     * Amount of blocks whose rounds {@link #encryptBlocks(byte[], int, byte[], int, int)} interleaves.
+     */
+    private static final int LANES = 4;
+    /**
+     * Per-thread scratch shared by all instances, sized for {@link #LANES} blocks of the widest (256 bits) state.
+     */
+    private static final ThreadLocal<int[]> SCRATCH_WORDS = ThreadLocal.withInitial(() -> new int[LANES * 2 * 8]);
     private final byte amountOfRounds;
     private final Triple<Byte, Byte, Byte> shifts;
     private final byte columnsCountInState;
@@ -20,6 +29,12 @@ public class Rijndael implements SymmetricEncrypter, KeyExpansion {
     private final byte[] mixColumnsPolyInv = { 0x0e, 0x09, 0x0d, 0x0b };
     private final byte moduloWithoutLeadingOne;
     private final byte[][] roundKeys;
+    private final RijndaelEngine engine;
+    private final RijndaelTables tables;
+    private final int[][] encryptShiftColumns;
+    private final int[][] decryptShiftColumns;
+    private final int[] encryptionKeyWords;
+    private final int[] decryptionKeyWords;
 
     public enum RijndaelBlockSize {
         SZ_128_BITS,
@@ -27,8 +42,24 @@ public class Rijndael implements SymmetricEncrypter, KeyExpansion {
         SZ_256_BITS,
     }
 
+    public enum RijndaelEngine {
+        /**
+         * Reference implementation working on a byte[4][Nb] state matrix.
+         */
+        STATE_MATRIX,
+        /**
+         * Word-oriented implementation with combined SubBytes + ShiftRows + MixColumns lookup tables.
+         * Produces the same output as {@link #STATE_MATRIX}.
+         */
+        T_TABLES
+    }
+
     public Rijndael(RijndaelBlockSize blockSize, byte[] key, byte moduloWithoutLeadingOne) {
-        if (!CryptoGF.isIrreducible8(moduloWithoutLeadingOne)) {
+        this(blockSize, key, moduloWithoutLeadingOne, RijndaelEngine.T_TABLES);
+    }
+
+    public Rijndael(RijndaelBlockSize blockSize, byte[] key, byte moduloWithoutLeadingOne, RijndaelEngine engine) {
+        if (!RijndaelTables.isIrreducible(moduloWithoutLeadingOne)) {
             throw new IllegalArgumentException("Irreducible polynomial of power 8 over field of elements in GF(2^8) is required!");
         }
 
@@ -56,14 +87,95 @@ public class Rijndael implements SymmetricEncrypter, KeyExpansion {
 
         this.moduloWithoutLeadingOne = moduloWithoutLeadingOne;
 
-        sBox = getSBox(moduloWithoutLeadingOne);
-        sBoxInv = getSBoxInv(moduloWithoutLeadingOne);
+        tables = RijndaelTables.of(moduloWithoutLeadingOne);
 
         roundKeys = expandKey(key);
+
+        this.engine = engine;
+        encryptShiftColumns = getShiftColumns(false);
+        decryptShiftColumns = getShiftColumns(true);
+        encryptionKeyWords = getEncryptionKeyWords();
+        decryptionKeyWords = getDecryptionKeyWords();
+    }
+
+    @Override
+    public int getBlockSize() {
+        return columnsCountInState * ROWS_COUNT;
+    }
+
+    @Override
+    public void wipe() {
+        for (byte[] roundKey : roundKeys) {
+            Arrays.fill(roundKey, (byte) 0);
+        }
+        Arrays.fill(encryptionKeyWords, 0);
+        Arrays.fill(decryptionKeyWords, 0);
+    }
+
+    @Override
+    public void encryptBlock(byte[] src, int srcOff, byte[] dst, int dstOff) {
+        if (engine == RijndaelEngine.T_TABLES) {
+            encryptWords(src, srcOff, dst, dstOff);
+        } else {
+            SymmetricEncrypter.super.encryptBlock(src, srcOff, dst, dstOff);
+        }
+    }
+
+    @Override
+    public void decryptBlock(byte[] src, int srcOff, byte[] dst, int dstOff) {
+        if (engine == RijndaelEngine.T_TABLES) {
+            decryptWords(src, srcOff, dst, dstOff);
+        } else {
+            SymmetricEncrypter.super.decryptBlock(src, srcOff, dst, dstOff);
+        }
+    }
+
+    @Override
+    public void encryptBlock(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex) {
+        if (engine == RijndaelEngine.T_TABLES) {
+            encryptWords(src, srcIndex, dst, dstIndex);
+        } else {
+            SymmetricEncrypter.super.encryptBlock(src, srcIndex, dst, dstIndex);
+        }
+    }
+
+    @Override
+    public void decryptBlock(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex) {
+        if (engine == RijndaelEngine.T_TABLES) {
+            decryptWords(src, srcIndex, dst, dstIndex);
+        } else {
+            SymmetricEncrypter.super.decryptBlock(src, srcIndex, dst, dstIndex);
+        }
+    }
+
+    /**
+     * Runs up to {@link #LANES} blocks through every round together, so table lookups of independent blocks overlap.
+     */
+    @Override
+    public void encryptBlocks(byte[] src, int srcOff, byte[] dst, int dstOff, int blocksCount) {
+        if (engine == RijndaelEngine.T_TABLES) {
+            transformBlocks(src, srcOff, dst, dstOff, blocksCount, true);
+        } else {
+            SymmetricEncrypter.super.encryptBlocks(src, srcOff, dst, dstOff, blocksCount);
+        }
+    }
+
+    @Override
+    public void decryptBlocks(byte[] src, int srcOff, byte[] dst, int dstOff, int blocksCount) {
+        if (engine == RijndaelEngine.T_TABLES) {
+            transformBlocks(src, srcOff, dst, dstOff, blocksCount, false);
+        } else {
+            SymmetricEncrypter.super.decryptBlocks(src, srcOff, dst, dstOff, blocksCount);
+        }
     }
 
     @Override
     public byte[] encrypt(byte[] block) {
+        if (engine == RijndaelEngine.T_TABLES) {
+            byte[] out = new byte[getBlockSize()];
+            encryptWords(block, 0, out, 0);
+            return out;
+        }
         byte[][] state = toState(block);
         addRoundKey(state, roundKeys[0]);
         for (int i = 1; i < amountOfRounds; ++i) {
@@ -80,6 +192,11 @@ public class Rijndael implements SymmetricEncrypter, KeyExpansion {
 
     @Override
     public byte[] decrypt(byte[] block) {
+        if (engine == RijndaelEngine.T_TABLES) {
+            byte[] out = new byte[getBlockSize()];
+            decryptWords(block, 0, out, 0);
+            return out;
+        }
         byte[][] state = toState(block);
         addRoundKey(state, roundKeys[amountOfRounds]);
         for (int i = amountOfRounds - 1; i > 0; --i) {
@@ -94,6 +211,236 @@ public class Rijndael implements SymmetricEncrypter, KeyExpansion {
         return glue(state);
     }
 
+    private void transformBlocks(byte[] src, int srcOff, byte[] dst, int dstOff, int blocksCount, boolean isEncrypt) {
+        int blockSize = getBlockSize();
+        int stride = 2 * columnsCountInState;
+        int[] words = SCRATCH_WORDS.get();
+        for (int first = 0; first < blocksCount; first += LANES) {
+            int lanes = Math.min(LANES, blocksCount - first);
+            for (int lane = 0; lane < lanes; ++lane) {
+                int offset = srcOff + (first + lane) * blockSize;
+                for (int c = 0; c < columnsCountInState; ++c) {
+                    words[lane * stride + c] = toWord(src, offset + ROWS_COUNT * c);
+                }
+            }
+            int result = isEncrypt ? encryptWords(words, lanes) : decryptWords(words, lanes);
+            for (int lane = 0; lane < lanes; ++lane) {
+                int offset = dstOff + (first + lane) * blockSize;
+                for (int c = 0; c < columnsCountInState; ++c) {
+                    fromWord(words[lane * stride + result + c], dst, offset + ROWS_COUNT * c);
+                }
+            }
+        }
+    }
+
+    private void encryptWords(byte[] src, int srcOff, byte[] dst, int dstOff) {
+        int[] words = SCRATCH_WORDS.get();
+        for (int c = 0; c < columnsCountInState; ++c) {
+            words[c] = toWord(src, srcOff + ROWS_COUNT * c);
+        }
+        int result = encryptWords(words, 1);
+        for (int c = 0; c < columnsCountInState; ++c) {
+            fromWord(words[result + c], dst, dstOff + ROWS_COUNT * c);
+        }
+    }
+
+    private void encryptWords(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex) {
+        int[] words = SCRATCH_WORDS.get();
+        for (int c = 0; c < columnsCountInState; ++c) {
+            words[c] = toWord(src, srcIndex + ROWS_COUNT * c);
+        }
+        int result = encryptWords(words, 1);
+        for (int c = 0; c < columnsCountInState; ++c) {
+            fromWord(words[result + c], dst, dstIndex + ROWS_COUNT * c);
+        }
+    }
+
+    /**
+     * Runs lanes blocks through the cipher. Column words of each block are stored in the first half of its
+     * 2 * Nb words long slice of words.
+     * @return index of the first column of the result within a slice
+     */
+    private int encryptWords(int[] words, int lanes) {
+        RijndaelTables t = tables;
+        int[] rk = encryptionKeyWords;
+        int[] shift1 = encryptShiftColumns[0];
+        int[] shift2 = encryptShiftColumns[1];
+        int[] shift3 = encryptShiftColumns[2];
+        int stride = 2 * columnsCountInState;
+        int end = lanes * stride;
+        int state = 0;
+        int temp = columnsCountInState;
+        for (int base = 0; base < end; base += stride) {
+            for (int c = 0; c < columnsCountInState; ++c) {
+                words[base + c] ^= rk[c];
+            }
+        }
+        int k = columnsCountInState;
+        for (int r = 1; r < amountOfRounds; ++r) {
+            for (int base = 0; base < end; base += stride) {
+                int from = base + state;
+                int to = base + temp;
+                for (int c = 0; c < columnsCountInState; ++c) {
+                    words[to + c] = t.te0[words[from + c] >>> 24]
+                            ^ t.te1[(words[from + shift1[c]] >>> 16) & 0xff]
+                            ^ t.te2[(words[from + shift2[c]] >>> 8) & 0xff]
+                            ^ t.te3[words[from + shift3[c]] & 0xff]
+                            ^ rk[k + c];
+                }
+            }
+            k += columnsCountInState;
+            temp = state;
+            state = columnsCountInState - state;
+        }
+        byte[] s = t.sBox;
+        for (int base = 0; base < end; base += stride) {
+            int from = base + state;
+            int to = base + temp;
+            for (int c = 0; c < columnsCountInState; ++c) {
+                int word = ((s[words[from + c] >>> 24] & 0xff) << 24)
+                        | ((s[(words[from + shift1[c]] >>> 16) & 0xff] & 0xff) << 16)
+                        | ((s[(words[from + shift2[c]] >>> 8) & 0xff] & 0xff) << 8)
+                        | (s[words[from + shift3[c]] & 0xff] & 0xff);
+                words[to + c] = word ^ rk[k + c];
+            }
+        }
+        return temp;
+    }
+
+    private void decryptWords(byte[] src, int srcOff, byte[] dst, int dstOff) {
+        int[] words = SCRATCH_WORDS.get();
+        for (int c = 0; c < columnsCountInState; ++c) {
+            words[c] = toWord(src, srcOff + ROWS_COUNT * c);
+        }
+        int result = decryptWords(words, 1);
+        for (int c = 0; c < columnsCountInState; ++c) {
+            fromWord(words[result + c], dst, dstOff + ROWS_COUNT * c);
+        }
+    }
+
+    private void decryptWords(ByteBuffer src, int srcIndex, ByteBuffer dst, int dstIndex) {
+        int[] words = SCRATCH_WORDS.get();
+        for (int c = 0; c < columnsCountInState; ++c) {
+            words[c] = toWord(src, srcIndex + ROWS_COUNT * c);
+        }
+        int result = decryptWords(words, 1);
+        for (int c = 0; c < columnsCountInState; ++c) {
+            fromWord(words[result + c], dst, dstIndex + ROWS_COUNT * c);
+        }
+    }
+
+    /**
+     * Runs lanes blocks through the cipher. Column words of each block are stored in the first half of its
+     * 2 * Nb words long slice of words.
+     * @return index of the first column of the result within a slice
+     */
+    private int decryptWords(int[] words, int lanes) {
+        RijndaelTables t = tables;
+        int[] rk = decryptionKeyWords;
+        int[] shift1 = decryptShiftColumns[0];
+        int[] shift2 = decryptShiftColumns[1];
+        int[] shift3 = decryptShiftColumns[2];
+        int stride = 2 * columnsCountInState;
+        int end = lanes * stride;
+        int state = 0;
+        int temp = columnsCountInState;
+        for (int base = 0; base < end; base += stride) {
+            for (int c = 0; c < columnsCountInState; ++c) {
+                words[base + c] ^= rk[c];
+            }
+        }
+        int k = columnsCountInState;
+        for (int r = 1; r < amountOfRounds; ++r) {
+            for (int base = 0; base < end; base += stride) {
+                int from = base + state;
+                int to = base + temp;
+                for (int c = 0; c < columnsCountInState; ++c) {
+                    words[to + c] = t.td0[words[from + c] >>> 24]
+                            ^ t.td1[(words[from + shift1[c]] >>> 16) & 0xff]
+                            ^ t.td2[(words[from + shift2[c]] >>> 8) & 0xff]
+                            ^ t.td3[words[from + shift3[c]] & 0xff]
+                            ^ rk[k + c];
+                }
+            }
+            k += columnsCountInState;
+            temp = state;
+            state = columnsCountInState - state;
+        }
+        byte[] s = t.sBoxInv;
+        for (int base = 0; base < end; base += stride) {
+            int from = base + state;
+            int to = base + temp;
+            for (int c = 0; c < columnsCountInState; ++c) {
+                int word = ((s[words[from + c] >>> 24] & 0xff) << 24)
+                        | ((s[(words[from + shift1[c]] >>> 16) & 0xff] & 0xff) << 16)
+                        | ((s[(words[from + shift2[c]] >>> 8) & 0xff] & 0xff) << 8)
+                        | (s[words[from + shift3[c]] & 0xff] & 0xff);
+                words[to + c] = word ^ rk[k + c];
+            }
+        }
+        return temp;
+    }
+
+    private int[][] getShiftColumns(boolean isInv) {
+        int[] rowShifts = { shifts.getLeft(), shifts.getMiddle(), shifts.getRight() };
+        int[][] columns = new int[rowShifts.length][columnsCountInState];
+        for (int row = 0; row < rowShifts.length; ++row) {
+            for (int c = 0; c < columnsCountInState; ++c) {
+                int shift = isInv ? columnsCountInState - rowShifts[row] % columnsCountInState : rowShifts[row];
+                columns[row][c] = (c + shift) % columnsCountInState;
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Round keys as big-endian column words. Mirrors {@link #addRoundKey(byte[][], byte[])},
+     * which only whitens the first ROWS_COUNT columns of the state.
+     */
+    private int[] getEncryptionKeyWords() {
+        int[] words = new int[(amountOfRounds + 1) * columnsCountInState];
+        for (int r = 0; r <= amountOfRounds; ++r) {
+            for (int c = 0; c < Math.min(ROWS_COUNT, columnsCountInState); ++c) {
+                words[r * columnsCountInState + c] = toWord(roundKeys[r], ROWS_COUNT * c);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Round keys of the equivalent inverse cipher: reversed order, InvMixColumns applied to every middle round.
+     */
+    private int[] getDecryptionKeyWords() {
+        int[] words = new int[encryptionKeyWords.length];
+        for (int r = 0; r <= amountOfRounds; ++r) {
+            for (int c = 0; c < columnsCountInState; ++c) {
+                int word = encryptionKeyWords[(amountOfRounds - r) * columnsCountInState + c];
+                words[r * columnsCountInState + c] = r == 0 || r == amountOfRounds ? word : tables.invMixColumn(word);
+            }
+        }
+        return words;
+    }
+
+    private static int toWord(byte[] src, int offset) {
+        return ((src[offset] & 0xff) << 24) | ((src[offset + 1] & 0xff) << 16) | ((src[offset + 2] & 0xff) << 8) | (src[offset + 3] & 0xff);
+    }
+
+    private static void fromWord(int word, byte[] dst, int offset) {
+        dst[offset] = (byte) (word >>> 24);
+        dst[offset + 1] = (byte) (word >>> 16);
+        dst[offset + 2] = (byte) (word >>> 8);
+        dst[offset + 3] = (byte) word;
+    }
+
+    private static int toWord(ByteBuffer src, int index) {
+        int word = src.getInt(index);
+        return src.order() == ByteOrder.BIG_ENDIAN ? word : Integer.reverseBytes(word);
+    }
+
+    private static void fromWord(int word, ByteBuffer dst, int index) {
+        dst.putInt(index, dst.order() == ByteOrder.BIG_ENDIAN ? word : Integer.reverseBytes(word));
+    }
+
     private byte[][] toState(byte[] block) {
         byte[][] state = new byte[4][columnsCountInState];
         for (int i = 0; i < ROWS_COUNT; ++i) {
@@ -117,7 +464,7 @@ public class Rijndael implements SymmetricEncrypter, KeyExpansion {
     private void subBytes(byte[][] state, boolean isInv) {
         for (int i = 0; i < state.length; ++i) {
             for (int j = 0; j < columnsCountInState; ++j) {
-                state[i][j] = isInv ? sBoxInv.get()[(state[i][j] & 0xff) >> 4][state[i][j] & 0xf] : sBox.get()[(state[i][j] & 0xff) >> 4][state[i][j] & 0xf];
+                state[i][j] = isInv ? tables.sBoxInv[state[i][j] & 0xff] : tables.sBox[state[i][j] & 0xff];
             }
         }
     }
@@ -183,43 +530,10 @@ public class Rijndael implements SymmetricEncrypter, KeyExpansion {
         }
     }
 
-    private Lazy<byte[][]> getSBox(byte mod) {
-        return new Lazy<>(() -> {
-            byte[][] innerSBox = new byte[16][16];
-            for (byte i = 0; i <= 0x0f; ++i) {
-                for (byte j = 0; j <= 0x0f; ++j) {
-                    byte b = (byte) ((i << 4) | (j & 0xff));
-                    byte bInv = CryptoGF.inverse8(b, mod);
-                    innerSBox[i][j] = (byte) ((bInv & 0xff) ^ cycledShiftLeft(bInv, 1) ^ cycledShiftLeft(bInv, 2) ^ cycledShiftLeft(bInv, 3) ^ cycledShiftLeft(bInv, 4) ^ 0x63);
-                }
-            }
-            return innerSBox;
-        });
-    }
-
-    private Lazy<byte[][]> getSBoxInv(byte mod) {
-        return new Lazy<>(() -> {
-            byte[][] innerSBoxInv = new byte[16][16];
-            for (byte i = 0; i <= 0x0f; ++i) {
-                for (byte j = 0; j <= 0x0f; ++j) {
-                    byte s = (byte) ((i << 4) | (j & 0xff));
-                    byte bInv = (byte) (cycledShiftLeft(s, 1) ^ cycledShiftLeft(s, 3) ^ cycledShiftLeft(s, 6) ^ 0x5);
-                    innerSBoxInv[i][j] = CryptoGF.inverse8(bInv, mod);
-                }
-            }
-            return innerSBoxInv;
-        });
-    }
-
-    private byte cycledShiftLeft(byte x, int y) {
-        byte toMove = (byte) (((((1 << y) - 1) << (8 - y)) & (0xff & x)) >>> (8 - y));
-        return (byte) ((x << y) | (0xff & toMove));
-    }
-
     @Override
     public byte[][] expandKey(byte[] key) {
         byte[][] expandedKeysStream = new byte[columnsCountInState * (amountOfRounds + 1)][ROWS_COUNT];
-        byte[] rCon = getRCon((amountOfRounds + 1) * 2 - 1);
+        byte[] rCon = RijndaelTables.rCon;
         for (int i = 0; i < columnsCountInKey; ++i) {
             expandedKeysStream[i] = new byte[] {
                     key[i * ROWS_COUNT],
@@ -233,12 +547,12 @@ public class Rijndael implements SymmetricEncrypter, KeyExpansion {
             if (i % columnsCountInKey == 0) {
                 previousColumn = cycledShiftLeft(previousColumn, 1);
                 for (int j = 0; j < ROWS_COUNT; ++j) {
-                    previousColumn[j] = sBox.get()[(previousColumn[j] & 0xff) >> 4][previousColumn[j] & 0xf];
+                    previousColumn[j] = tables.sBox[previousColumn[j] & 0xff];
                 }
                 previousColumn[0] ^= rCon[i / columnsCountInKey - 1];
             } else if (i % columnsCountInKey == 4 && columnsCountInKey > 6) {
                 for (int j = 0; j < ROWS_COUNT; ++j) {
-                    previousColumn[j] = sBox.get()[(previousColumn[j] & 0xff) >> 4][previousColumn[j] & 0xf];
+                    previousColumn[j] = tables.sBox[previousColumn[j] & 0xff];
                 }
             }
             expandedKeysStream[i] = Utility.xor(previousColumn, expandedKeysStream[i - columnsCountInKey]);
@@ -258,18 +572,4 @@ public class Rijndael implements SymmetricEncrypter, KeyExpansion {
         return expandedKeys;
     }
 
-    private byte[] getRCon(int n) {
-        byte[] rCon = new byte[n];
-        for (int i = 0; i < rCon.length; ++i) {
-            if (i == 0) {
-                rCon[i] = 1;
-            } else if ((rCon[i - 1] & 0xff) < 0x80) {
-                rCon[i] = (byte) (2 * rCon[i - 1]);
-            } else {
-                rCon[i] = (byte) ((2 * rCon[i - 1]) ^ 0x11B);
-            }
-        }
-        return rCon;
-    }
-
 }
@@ -0,0 +1,126 @@
+package ru.namerpro.cryptography.symmetricencrypters.rijndael;
+
+import ru.namerpro.cryptography.utils.stateless.CryptoGF;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * S-boxes and combined SubBytes + ShiftRows + MixColumns lookup tables (Te0..Te3) with their inverses (Td0..Td3)
+ * for a single irreducible modulus. Words are packed big-endian: row 0 of a column lives in the highest byte.
+ * Tables depend on the modulus only, so they are built once per modulus and shared by all instances.
+ */
+class RijndaelTables {
+
+    private static final int TABLE_SIZE = 256;
+    private static final int R_CON_SIZE = 30;
+    private static final AtomicReferenceArray<RijndaelTables> cache = new AtomicReferenceArray<>(TABLE_SIZE);
+
+    /**
+     * Round constants. They are generated over 0x11B regardless of the modulus.
+     */
+    static final byte[] rCon = getRCon();
+
+    final byte[] sBox = new byte[TABLE_SIZE];
+    final byte[] sBoxInv = new byte[TABLE_SIZE];
+    final int[] te0 = new int[TABLE_SIZE];
+    final int[] te1 = new int[TABLE_SIZE];
+    final int[] te2 = new int[TABLE_SIZE];
+    final int[] te3 = new int[TABLE_SIZE];
+    final int[] td0 = new int[TABLE_SIZE];
+    final int[] td1 = new int[TABLE_SIZE];
+    final int[] td2 = new int[TABLE_SIZE];
+    final int[] td3 = new int[TABLE_SIZE];
+    private final byte mod;
+
+    private RijndaelTables(byte mod) {
+        this.mod = mod;
+        for (int x = 0; x < TABLE_SIZE; ++x) {
+            byte b = CryptoGF.inverse8((byte) x, mod);
+            sBox[x] = (byte) ((b & 0xff) ^ cycledShiftLeft(b, 1) ^ cycledShiftLeft(b, 2) ^ cycledShiftLeft(b, 3) ^ cycledShiftLeft(b, 4) ^ 0x63);
+            sBoxInv[x] = CryptoGF.inverse8((byte) (cycledShiftLeft((byte) x, 1) ^ cycledShiftLeft((byte) x, 3) ^ cycledShiftLeft((byte) x, 6) ^ 0x5), mod);
+        }
+        for (int x = 0; x < TABLE_SIZE; ++x) {
+            byte s = sBox[x];
+            byte si = sBoxInv[x];
+
+            te0[x] = pack(multiply(s, 0x02), s & 0xff, s & 0xff, multiply(s, 0x03));
+            td0[x] = pack(multiply(si, 0x0e), multiply(si, 0x09), multiply(si, 0x0d), multiply(si, 0x0b));
+
+            te1[x] = Integer.rotateRight(te0[x], 8);
+            te2[x] = Integer.rotateRight(te0[x], 16);
+            te3[x] = Integer.rotateRight(te0[x], 24);
+            td1[x] = Integer.rotateRight(td0[x], 8);
+            td2[x] = Integer.rotateRight(td0[x], 16);
+            td3[x] = Integer.rotateRight(td0[x], 24);
+        }
+    }
+
+    static boolean isIrreducible(byte mod) {
+        return IrreducibilityVerdicts.verdicts[mod & 0xff];
+    }
+
+    /**
+     * Returns tables for the irreducible modulus, building them on first request.
+     */
+    static RijndaelTables of(byte mod) {
+        int index = mod & 0xff;
+        RijndaelTables tables = cache.get(index);
+        if (tables == null) {
+            cache.compareAndSet(index, null, new RijndaelTables(mod));
+            tables = cache.get(index);
+        }
+        return tables;
+    }
+
+    /**
+     * Applies InvMixColumns to a single column. Used to turn encryption round keys into the ones
+     * of the equivalent inverse cipher.
+     */
+    int invMixColumn(int column) {
+        int a0 = column >>> 24;
+        int a1 = (column >>> 16) & 0xff;
+        int a2 = (column >>> 8) & 0xff;
+        int a3 = column & 0xff;
+        return td0[sBox[a0] & 0xff] ^ td1[sBox[a1] & 0xff] ^ td2[sBox[a2] & 0xff] ^ td3[sBox[a3] & 0xff];
+    }
+
+    private int multiply(byte x, int y) {
+        return CryptoGF.multiply(x, (byte) y, mod) & 0xff;
+    }
+
+    private static int pack(int b0, int b1, int b2, int b3) {
+        return (b0 << 24) | (b1 << 16) | (b2 << 8) | b3;
+    }
+
+    private static byte cycledShiftLeft(byte x, int y) {
+        byte toMove = (byte) (((((1 << y) - 1) << (8 - y)) & (0xff & x)) >>> (8 - y));
+        return (byte) ((x << y) | (0xff & toMove));
+    }
+
+    private static byte[] getRCon() {
+        byte[] rCon = new byte[R_CON_SIZE];
+        for (int i = 0; i < rCon.length; ++i) {
+            if (i == 0) {
+                rCon[i] = 1;
+            } else if ((rCon[i - 1] & 0xff) < 0x80) {
+                rCon[i] = (byte) (2 * rCon[i - 1]);
+            } else {
+                rCon[i] = (byte) ((2 * rCon[i - 1]) ^ 0x11B);
+            }
+        }
+        return rCon;
+    }
+
+    private static final class IrreducibilityVerdicts {
+
+        private static final boolean[] verdicts = new boolean[TABLE_SIZE];
+
+        static {
+            for (int x = 0; x < TABLE_SIZE; ++x) {
+                verdicts[x] = CryptoGF.isIrreducible8((byte) x);
+            }
+        }
+
+    }
+
+}
@@ -1,15 +1,32 @@
 package ru.namerpro.cryptography.utils;
 
+import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.charset.Charset;
 import java.security.SecureRandom;
-import java.util.List;
-import java.util.concurrent.Future;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Utility {
 
+    /**
+     * sun.misc.Unsafe.invokeCleaner bound to the Unsafe instance, or null when the runtime does not expose it.
+     */
+    private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
     public static byte[][] splitToBlocks(byte[] src, int blockSize) {
         int blocksCount = src.length / blockSize;
         byte[][] splitSrc = new byte[blocksCount][blockSize];
@@ -21,34 +38,124 @@ public class Utility {
         return splitSrc;
     }
 
-    public static byte[] queryResult(List<Pair<Integer, Future<byte[]>>> futures, int blockSize, int textSize) {
-        return (byte[]) queryResult(futures, blockSize, textSize, false);
+    @FunctionalInterface
+    public interface RangeTask {
+
+        void run(int from, int to);
+
+    }
+
+    /**
+     * Splits [0, count) into ranges of at most rangeSize elements, runs task for each of them on the service
+     * and blocks until all of them are done. On a ForkJoinPool ranges are forked recursively so idle workers
+     * can steal them. Small inputs are run on the calling thread. First failure is rethrown.
+     */
+    public static void runInParallel(ExecutorService service, int count, int rangeSize, RangeTask task) {
+        runInParallel(service, count, rangeSize, Integer.MAX_VALUE, task);
     }
 
+    /**
+     * Same as {@link #runInParallel(ExecutorService, int, int, RangeTask)}, but at most parallelism ranges
+     * (the calling thread included) run at the same time. Limited runs submit parallelism - 1 helpers which,
+     * like the calling thread, take ranges one by one until none are left, so the calling thread never waits
+     * for a range nobody has started and a busy or rejecting service only reduces the speedup.
+     */
     @SneakyThrows
-    public static Object queryResult(List<Pair<Integer, Future<byte[]>>> futures, int blockSize, int textSize, boolean isSplit) {
-        Object result = isSplit ? new byte[futures.size()][] : new byte[textSize];
-        var it = futures.listIterator();
-        while (!futures.isEmpty()) {
-            var currentData = it.next();
-            int currentIndex = currentData.getKey();
-            var currentFuture = currentData.getValue();
-            if (currentFuture.isDone()) {
-                var response = currentFuture.get();
-                if (isSplit) {
-                    ((byte[][]) result)[currentIndex] = response;
-                } else {
-                    for (int i = 0; i < blockSize; ++i) {
-                        ((byte[]) result)[currentIndex * blockSize + i] = response[i];
+    public static void runInParallel(ExecutorService service, int count, int rangeSize, int parallelism, RangeTask task) {
+        if (rangeSize <= 0) {
+            throw new IllegalArgumentException("Range size must be positive, but " + rangeSize + " found!");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive, but " + parallelism + " found!");
+        }
+        if (count <= rangeSize || parallelism == 1) {
+            if (count > 0) {
+                task.run(0, count);
+            }
+            return;
+        }
+        if (service instanceof ForkJoinPool pool && parallelism == Integer.MAX_VALUE) {
+            pool.invoke(new RangeAction(task, 0, count, rangeSize));
+            return;
+        }
+        int rangesCount = (count + rangeSize - 1) / rangeSize;
+        CountDownLatch latch = new CountDownLatch(rangesCount);
+        AtomicInteger nextRange = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Runnable worker = () -> {
+            int range;
+            while ((range = nextRange.getAndIncrement()) < rangesCount) {
+                try {
+                    if (failure.get() == null) {
+                        task.run(range * rangeSize, Math.min((range + 1) * rangeSize, count));
                     }
+                } catch (Throwable error) {
+                    failure.compareAndSet(null, error);
+                } finally {
+                    latch.countDown();
                 }
-                it.remove();
             }
-            if (!it.hasNext()) {
-                it = futures.listIterator();
+        };
+        int helpersCount = Math.min(parallelism, rangesCount) - 1;
+        for (int i = 0; i < helpersCount; ++i) {
+            try {
+                service.execute(worker);
+            } catch (RejectedExecutionException error) {
+                break;
             }
         }
-        return result;
+        worker.run();
+        latch.await();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class RangeAction extends RecursiveAction {
+
+        private final transient RangeTask task;
+        private final int from;
+        private final int to;
+        private final int rangeSize;
+
+        @Override
+        protected void compute() {
+            if (to - from <= rangeSize) {
+                task.run(from, to);
+                return;
+            }
+            int middle = from + Math.max((to - from) / rangeSize / 2, 1) * rangeSize;
+            invokeAll(new RangeAction(task, from, middle, rangeSize), new RangeAction(task, middle, to, rangeSize));
+        }
+
+    }
+
+    public static void xor(byte[] left, int leftOff, byte[] right, int rightOff, byte[] dst, int dstOff, int length) {
+        for (int i = 0; i < length; ++i) {
+            dst[dstOff + i] = (byte) (left[leftOff + i] ^ right[rightOff + i]);
+        }
+    }
+
+    /**
+     * Same as {@link #xor(byte[], int, byte[], int, byte[], int, int)} on absolute indexes of buffers.
+     */
+    public static void xor(ByteBuffer left, int leftIndex, ByteBuffer right, int rightIndex, ByteBuffer dst, int dstIndex, int length) {
+        for (int i = 0; i < length; ++i) {
+            dst.put(dstIndex + i, (byte) (left.get(leftIndex + i) ^ right.get(rightIndex + i)));
+        }
+    }
+
+    public static void xor(ByteBuffer left, int leftIndex, byte[] right, int rightOff, ByteBuffer dst, int dstIndex, int length) {
+        for (int i = 0; i < length; ++i) {
+            dst.put(dstIndex + i, (byte) (left.get(leftIndex + i) ^ right[rightOff + i]));
+        }
+    }
+
+    public static void xor(ByteBuffer left, int leftIndex, ByteBuffer right, int rightIndex, byte[] dst, int dstOff, int length) {
+        for (int i = 0; i < length; ++i) {
+            dst[dstOff + i] = (byte) (left.get(leftIndex + i) ^ right.get(rightIndex + i));
+        }
     }
 
     public static byte[] xor(byte[] left, byte[] right) {
@@ -146,4 +253,33 @@ public class Utility {
         return left;
     }
 
+
+    /**
+     * Unmaps buffer right away instead of waiting for it to be garbage collected. Does nothing if the runtime
+     * does not allow it. Buffer and all its views must not be accessed afterward.
+     */
+    public static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+        } catch (Throwable ignored) {
+            // the mapping is released by the garbage collector then
+        }
+    }
+
+    private static MethodHandle findInvokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
 }
@@ -15,13 +15,10 @@ public class CryptoGF {
     }
 
     public static byte multiply(byte x, byte y, byte mod) {
-        char mul = 0;
-        while (x != 0) {
-            int bitIndex = getPolynomialPower(x & 0xff);
-            mul ^= (char) ((0xff & y) << bitIndex);
-            x ^= (byte) (1 << bitIndex);
+        if (mod == 0) {
+            throw new ArithmeticException("Reminder by 0 is not allowed!");
         }
-        return reminder8(mul, mod);
+        return GFTables.of(mod).multiply(x, y);
     }
 
     public static byte reminder8(char x, byte mod) {
@@ -60,13 +57,17 @@ public class CryptoGF {
         if (y == 0) {
             throw new ArithmeticException("Division by 0 is not allowed!");
         }
+        return DivisionTable.QUOTIENTS[((x & 0xff) << 8) | (y & 0xff)];
+    }
+
+    private static byte divideByPolynomial(byte x, byte y) {
         if (x == 0) {
             return 0;
         }
         int maxYPolyPow = getPolynomialPower(y & 0xff);
         int xPolyPow = getPolynomialPower(x & 0xff);
         byte z = 0;
-        while (xPolyPow >= maxYPolyPow) {
+        while (x != 0 && xPolyPow >= maxYPolyPow) {
             x ^= (byte) (y << (xPolyPow - maxYPolyPow));
             z ^= (byte) (1 << (xPolyPow - maxYPolyPow));
             xPolyPow = getPolynomialPower(x & 0xff);
@@ -78,19 +79,17 @@ public class CryptoGF {
         if (mod == 0) {
             throw new ArithmeticException("Modulo cannot be 0!");
         }
-        return x == 0 ? 0 : pow(x, 254, mod);
+        return GFTables.of(mod).inverse(x);
     }
 
     public static byte pow(byte x, int y, byte mod) {
-        byte z = 1;
-        while (y != 0) {
-            if ((y & 1) == 1) {
-                z = multiply(z, x, mod);
-            }
-            x = multiply(x, x, mod);
-            y >>>= 1;
+        if (y == 0) {
+            return 1;
         }
-        return z;
+        if (mod == 0) {
+            throw new ArithmeticException("Reminder by 0 is not allowed!");
+        }
+        return GFTables.of(mod).pow(x, y);
     }
 
     public static boolean isIrreducible8(byte x) {
@@ -169,6 +168,52 @@ public class CryptoGF {
         return primitiveList;
     }
 
+    /**
+     * Quotients of all pairs of 8-bit polynomials, built on first division.
+     */
+    private static final class DivisionTable {
+
+        private static final byte[] QUOTIENTS = new byte[1 << 16];
+
+        static {
+            for (int x = 0; x < (1 << 8); ++x) {
+                for (int y = 1; y < (1 << 8); ++y) {
+                    QUOTIENTS[(x << 8) | y] = divideByPolynomial((byte) x, (byte) y);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Product of 16-byte elements of GF(2^128) in GHASH convention (bit 0 of a block is the most significant bit
+     * of its first byte, modulo x^128 + x^7 + x^2 + x + 1), computed bit by bit. See {@link GHashTable} for
+     * repeated multiplication by the same element.
+     */
+    public static byte[] multiply128(byte[] x, byte[] y) {
+        if (x.length != GHashTable.BLOCK_SIZE || y.length != GHashTable.BLOCK_SIZE) {
+            throw new IllegalArgumentException("Elements of " + GHashTable.BLOCK_SIZE + " bytes expected, but " + x.length + " and " + y.length + " found!");
+        }
+        byte[] z = new byte[GHashTable.BLOCK_SIZE];
+        byte[] v = y.clone();
+        for (int i = 0; i < 128; ++i) {
+            if ((x[i >>> 3] & (0x80 >>> (i & 7))) != 0) {
+                for (int k = 0; k < GHashTable.BLOCK_SIZE; ++k) {
+                    z[k] ^= v[k];
+                }
+            }
+            boolean isReduced = (v[GHashTable.BLOCK_SIZE - 1] & 1) != 0;
+            for (int k = GHashTable.BLOCK_SIZE - 1; k > 0; --k) {
+                v[k] = (byte) (((v[k] & 0xff) >>> 1) | (v[k - 1] << 7));
+            }
+            v[0] = (byte) ((v[0] & 0xff) >>> 1);
+            if (isReduced) {
+                v[0] ^= (byte) 0xe1;
+            }
+        }
+        return z;
+    }
+
     public static int getPolynomialPower(long x) {
         return x == 0 ? 0 : Long.numberOfTrailingZeros(Long.highestOneBit(x));
     }
@@ -0,0 +1,120 @@
+package ru.namerpro.cryptography.utils.stateless;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lookup tables of GF(2^8) arithmetic for a single modulus x^8 + mod: full 64 KB multiplication table
+ * and, when the modulus is irreducible, log/antilog tables over a generator of the multiplicative group.
+ * Tables are built on first use and shared between threads.
+ */
+final class GFTables {
+
+    private static final int FIELD_SIZE = 256;
+    private static final int GROUP_ORDER = 255;
+    private static final int[] GROUP_ORDER_PRIME_FACTORS = { 3, 5, 17 };
+    private static final AtomicReferenceArray<GFTables> cache = new AtomicReferenceArray<>(FIELD_SIZE);
+
+    private final byte[] products = new byte[FIELD_SIZE * FIELD_SIZE];
+    private final int[] log;
+    private final byte[] exp;
+
+    private GFTables(byte mod) {
+        byte[] basis = new byte[8];
+        for (int x = 1; x < FIELD_SIZE; ++x) {
+            int power = x;
+            for (int k = 0; k < 8; ++k) {
+                basis[k] = (byte) power;
+                power = ((power << 1) ^ ((power & 0x80) != 0 ? mod & 0xff : 0)) & 0xff;
+            }
+            int row = x << 8;
+            for (int y = 1; y < FIELD_SIZE; ++y) {
+                products[row | y] = (byte) (products[row | (y & (y - 1))] ^ basis[Integer.numberOfTrailingZeros(y)]);
+            }
+        }
+
+        int generator = CryptoGF.isIrreducible8(mod) ? findGenerator() : 0;
+        if (generator == 0) {
+            this.log = null;
+            this.exp = null;
+            return;
+        }
+        this.log = new int[FIELD_SIZE];
+        this.exp = new byte[2 * GROUP_ORDER];
+        int value = 1;
+        for (int i = 0; i < GROUP_ORDER; ++i) {
+            exp[i] = (byte) value;
+            exp[i + GROUP_ORDER] = (byte) value;
+            log[value] = i;
+            value = multiply(value, generator);
+        }
+    }
+
+    static GFTables of(byte mod) {
+        int index = mod & 0xff;
+        GFTables tables = cache.get(index);
+        if (tables == null) {
+            cache.compareAndSet(index, null, new GFTables(mod));
+            tables = cache.get(index);
+        }
+        return tables;
+    }
+
+    byte multiply(byte x, byte y) {
+        return products[((x & 0xff) << 8) | (y & 0xff)];
+    }
+
+    /**
+     * Same result as square-and-multiply over the unsigned value of y.
+     */
+    byte pow(byte x, int y) {
+        if (y == 0) {
+            return 1;
+        }
+        if (x == 0) {
+            return 0;
+        }
+        if (exp != null) {
+            return exp[(int) ((log[x & 0xff] * (Integer.toUnsignedLong(y) % GROUP_ORDER)) % GROUP_ORDER)];
+        }
+        byte z = 1;
+        while (y != 0) {
+            if ((y & 1) == 1) {
+                z = multiply(z, x);
+            }
+            x = multiply(x, x);
+            y >>>= 1;
+        }
+        return z;
+    }
+
+    byte inverse(byte x) {
+        if (x == 0) {
+            return 0;
+        }
+        if (exp != null) {
+            return exp[GROUP_ORDER - log[x & 0xff]];
+        }
+        return pow(x, GROUP_ORDER - 1);
+    }
+
+    private int multiply(int x, int y) {
+        return products[(x << 8) | y] & 0xff;
+    }
+
+    private int findGenerator() {
+        for (int candidate = 2; candidate < FIELD_SIZE; ++candidate) {
+            boolean isGenerator = true;
+            for (int factor : GROUP_ORDER_PRIME_FACTORS) {
+                if (pow((byte) candidate, GROUP_ORDER / factor) == 1) {
+                    isGenerator = false;
+                    break;
+                }
+            }
+            if (isGenerator) {
+                return candidate;
+            }
+        }
+        return 0;
+    }
+
+}
@@ -0,0 +1,104 @@
+package ru.namerpro.cryptography.utils.stateless;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Multiplication by a fixed element H of GF(2^128) as defined for GHASH (bit-reflected, modulo x^128 + x^7 + x^2 + x + 1),
+ * using Shoup's 4-bit tables: 16 multiples of H and 16 reduction constants, so a product costs 32 table lookups.
+ * Elements are kept as pairs of longs: high holds bytes 0..7 and low bytes 8..15 of the block, both big-endian.
+ */
+public final class GHashTable {
+
+    public static final int BLOCK_SIZE = 16;
+
+    private static final long[] REDUCTIONS = {
+            0x0000, 0x1c20, 0x3840, 0x2460, 0x7080, 0x6ca0, 0x48c0, 0x54e0,
+            0xe100, 0xfd20, 0xd940, 0xc560, 0x9180, 0x8da0, 0xa9c0, 0xb5e0
+    };
+
+    private final long[] high = new long[16];
+    private final long[] low = new long[16];
+
+    public GHashTable(byte[] h) {
+        if (h.length != BLOCK_SIZE) {
+            throw new IllegalArgumentException("Hash key of " + BLOCK_SIZE + " bytes expected, but " + h.length + " found!");
+        }
+        long vh = getLong(h, 0);
+        long vl = getLong(h, 8);
+        high[8] = vh;
+        low[8] = vl;
+        for (int i = 4; i > 0; i >>= 1) {
+            long reduction = (vl & 1) * 0xe100000000000000L;
+            vl = (vh << 63) | (vl >>> 1);
+            vh = (vh >>> 1) ^ reduction;
+            high[i] = vh;
+            low[i] = vl;
+        }
+        for (int i = 2; i <= 8; i <<= 1) {
+            for (int j = 1; j < i; ++j) {
+                high[i + j] = high[i] ^ high[j];
+                low[i + j] = low[i] ^ low[j];
+            }
+        }
+    }
+
+    /**
+     * x = x * H
+     */
+    public void multiply(long[] x) {
+        long xh = x[0];
+        long xl = x[1];
+        int nibble = (int) (xl & 0xf);
+        long zh = high[nibble];
+        long zl = low[nibble];
+        for (int i = BLOCK_SIZE - 1; i >= 0; --i) {
+            int value = (int) ((i < 8 ? xh >>> (8 * (7 - i)) : xl >>> (8 * (15 - i))) & 0xff);
+            if (i != BLOCK_SIZE - 1) {
+                long rem = zl & 0xf;
+                zl = (zh << 60) | (zl >>> 4);
+                zh = (zh >>> 4) ^ (REDUCTIONS[(int) rem] << 48);
+                zh ^= high[value & 0xf];
+                zl ^= low[value & 0xf];
+            }
+            long rem = zl & 0xf;
+            zl = (zh << 60) | (zl >>> 4);
+            zh = (zh >>> 4) ^ (REDUCTIONS[(int) rem] << 48);
+            zh ^= high[value >>> 4];
+            zl ^= low[value >>> 4];
+        }
+        x[0] = zh;
+        x[1] = zl;
+    }
+
+    /**
+     * Absorbs length bytes (whole blocks) of src into hash: hash = (hash ^ block) * H for every block.
+     */
+    public void update(long[] hash, byte[] src, int srcOff, int length) {
+        for (int offset = srcOff; offset < srcOff + length; offset += BLOCK_SIZE) {
+            hash[0] ^= getLong(src, offset);
+            hash[1] ^= getLong(src, offset + 8);
+            multiply(hash);
+        }
+    }
+
+    /**
+     * Same as {@link #update(long[], byte[], int, int)} on absolute indexes of src.
+     */
+    public void update(long[] hash, ByteBuffer src, int srcIndex, int length) {
+        for (int index = srcIndex; index < srcIndex + length; index += BLOCK_SIZE) {
+            for (int k = 0; k < BLOCK_SIZE; ++k) {
+                hash[k >>> 3] ^= (src.get(index + k) & 0xffL) << (8 * (7 - (k & 7)));
+            }
+            multiply(hash);
+        }
+    }
+
+    private static long getLong(byte[] src, int srcOff) {
+        long value = 0;
+        for (int i = 0; i < 8; ++i) {
+            value = (value << 8) | (src[srcOff + i] & 0xff);
+        }
+        return value;
+    }
+
+}
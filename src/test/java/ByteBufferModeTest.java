@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
+import ru.namerpro.cryptography.api.symmetric.modes.SymmetricEncryptMode;
+import ru.namerpro.cryptography.context.SymmetricEncrypterContext;
+import ru.namerpro.cryptography.context.encrypter.Encrypter;
+import ru.namerpro.cryptography.mode.Mode;
+import ru.namerpro.cryptography.mode.impl.*;
+import ru.namerpro.cryptography.padding.Padding;
+import ru.namerpro.cryptography.symmetricencrypters.rijndael.Rijndael;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+class ByteBufferModeTest {
+
+    @ParameterizedTest(name = "Testing ByteBuffer encryption (encrypter: {0}, mode: {1}, direct: {2})")
+    @MethodSource
+    void byteBufferMatchesByteArrayTest(Encrypter encrypter, Mode mode, boolean isDirect) throws ExecutionException, InterruptedException {
+        Random random = new Random(31L * mode.ordinal() + encrypter.ordinal());
+        int blockSize = encrypter == Encrypter.DES ? 8 : 16;
+        byte[] key = new byte[blockSize == 8 ? 8 : 16];
+        byte[] iv = mode == Mode.ECB ? null : new byte[mode == Mode.CTR ? blockSize / 2 : blockSize];
+        byte[] data = new byte[10_007];
+        random.nextBytes(key);
+        if (iv != null) {
+            random.nextBytes(iv);
+        }
+        random.nextBytes(data);
+        Object[] options = encrypter == Encrypter.RIJNDAEL ? new Object[] { Rijndael.RijndaelBlockSize.SZ_128_BITS, 0x1B } : new Object[0];
+
+        try (var context = new SymmetricEncrypterContext(encrypter, key, mode, Padding.PKCS7, iv, options)) {
+            context.setParallelChunkSize(512);
+            byte[] expected = context.encrypt(data).get();
+
+            ByteBuffer src = allocate(data.length + 3, isDirect).order(ByteOrder.LITTLE_ENDIAN);
+            src.position(3);
+            src.put(data).flip().position(3);
+            ByteBuffer encrypted = allocate(expected.length + 5, isDirect);
+            encrypted.position(5);
+            Assertions.assertEquals(expected.length, context.encrypt(src, encrypted).get());
+            Assertions.assertFalse(src.hasRemaining());
+            Assertions.assertEquals(expected.length + 5, encrypted.position());
+            byte[] actual = new byte[expected.length];
+            encrypted.flip().position(5);
+            encrypted.slice().get(actual);
+            Assertions.assertArrayEquals(expected, actual);
+
+            ByteBuffer decrypted = allocate(data.length, isDirect);
+            Assertions.assertEquals(data.length, context.decrypt(encrypted, decrypted).get());
+            byte[] result = new byte[data.length];
+            decrypted.flip().get(result);
+            Assertions.assertArrayEquals(data, result);
+        }
+    }
+
+    private static Stream<Arguments> byteBufferMatchesByteArrayTest() {
+        return Stream.of(Encrypter.DES, Encrypter.DEAL, Encrypter.RIJNDAEL)
+                .flatMap(encrypter -> Stream.of(Mode.ECB, Mode.CBC, Mode.PCBC, Mode.CFB, Mode.OFB, Mode.CTR, Mode.RD)
+                        .flatMap(mode -> Stream.of(true, false).map(isDirect -> Arguments.of(encrypter, mode, isDirect))));
+    }
+
+    private static ByteBuffer allocate(int capacity, boolean isDirect) {
+        return isDirect ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    @ParameterizedTest(name = "Testing cipher not reporting its block size (mode: {0})")
+    @MethodSource
+    void cipherWithoutBlockSizeTest(SymmetricEncryptMode mode) {
+        SymmetricEncrypter legacy = new SymmetricEncrypter() {
+
+            @Override
+            public byte[] encrypt(byte[] block) {
+                byte[] result = new byte[block.length];
+                for (int i = 0; i < block.length; ++i) {
+                    result[i] = (byte) ((block[(i + 1) % block.length] ^ 0x5A) + i);
+                }
+                return result;
+            }
+
+            @Override
+            public byte[] decrypt(byte[] block) {
+                byte[] result = new byte[block.length];
+                for (int i = 0; i < block.length; ++i) {
+                    result[(i + 1) % block.length] = (byte) ((block[i] - i) ^ 0x5A);
+                }
+                return result;
+            }
+
+        };
+        byte[] data = new byte[8 * 100];
+        new Random(8).nextBytes(data);
+
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> legacy.encryptBlock(data, 0, new byte[8], 0));
+        byte[] encrypted = mode.apply(data, 8, legacy);
+        Assertions.assertArrayEquals(data, mode.reverse(encrypted, 8, legacy));
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        mode.apply(ByteBuffer.wrap(data), direct, 8, legacy, mode.getInitialState(8));
+        Assertions.assertEquals(ByteBuffer.wrap(encrypted), direct.flip());
+    }
+
+    private static Stream<SymmetricEncryptMode> cipherWithoutBlockSizeTest() {
+        byte[] iv = { 1, 2, 3, 4, 5, 6, 7, 8 };
+        ExecutorService service = ForkJoinPool.commonPool();
+        return Stream.of(new ECB(service), new CBC(service, iv), new PCBC(service, iv), new CFB(service, iv), new OFB(iv),
+                new CTR(service, new byte[4], 8), new RD(service, iv));
+    }
+
+}
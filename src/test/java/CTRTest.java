@@ -0,0 +1,105 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
+import ru.namerpro.cryptography.mode.impl.CTR;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+class CTRTest {
+
+    @ParameterizedTest(name = "Testing CTR counter blocks (block size: {0}, counter width: {1}, first block: {2})")
+    @MethodSource
+    void counterBlocksTest(int blockSize, int counterWidth, long firstBlockIndex) {
+        Random random = new Random(31L * blockSize + counterWidth + firstBlockIndex);
+        byte[] iv = new byte[blockSize / 2];
+        random.nextBytes(iv);
+        CTR ctr = new CTR(ForkJoinPool.commonPool(), iv, blockSize);
+        ctr.setCounterWidth(counterWidth);
+        ctr.setOverflowPolicy(CTR.OverflowPolicy.WRAP);
+        ctr.setChunkSize(7 * blockSize);
+        int blocksCount = 600;
+        byte[] counters = new byte[blocksCount * blockSize];
+        ctr.apply(new byte[counters.length], 0, counters, 0, counters.length, blockSize, new Identity(blockSize), ctr.getStateAt(firstBlockIndex, blockSize));
+        ByteBuffer direct = ByteBuffer.allocateDirect(counters.length);
+        ctr.apply(ByteBuffer.allocateDirect(counters.length), 0, direct, 0, counters.length, blockSize, new Identity(blockSize), ctr.getStateAt(firstBlockIndex, blockSize));
+
+        BigInteger modulus = BigInteger.ONE.shiftLeft(8 * counterWidth);
+        for (int i = 0; i < blocksCount; ++i) {
+            byte[] expected = new byte[blockSize];
+            System.arraycopy(iv, 0, expected, 0, iv.length);
+            byte[] counter = BigInteger.valueOf(firstBlockIndex).add(BigInteger.valueOf(i)).mod(modulus).toByteArray();
+            for (int k = 0; k < Math.min(counter.length, counterWidth); ++k) {
+                expected[blockSize - 1 - k] = counter[counter.length - 1 - k];
+            }
+            byte[] block = Arrays.copyOfRange(counters, i * blockSize, (i + 1) * blockSize);
+            Assertions.assertArrayEquals(expected, block);
+            Assertions.assertEquals(ByteBuffer.wrap(block), direct.slice(i * blockSize, blockSize));
+        }
+    }
+
+    private static Stream<Arguments> counterBlocksTest() {
+        return Stream.of(8, 16, 32)
+                .flatMap(blockSize -> Stream.of(1, 2, blockSize / 2)
+                        .flatMap(counterWidth -> Stream.of(0L, 250L, (1L << 32) - 300, Long.MAX_VALUE - 599).map(index -> Arguments.of(blockSize, counterWidth, index))));
+    }
+
+    @ParameterizedTest(name = "Testing CTR counter overflow policy (counter width: {0})")
+    @MethodSource
+    void overflowPolicyTest(int counterWidth) {
+        int blockSize = 16;
+        CTR ctr = new CTR(ForkJoinPool.commonPool(), new byte[blockSize - counterWidth], blockSize);
+        ctr.setCounterWidth(counterWidth);
+        long limit = 1L << (8 * counterWidth);
+        byte[] data = new byte[4 * blockSize];
+        byte[] result = new byte[data.length];
+        Identity identity = new Identity(blockSize);
+
+        ctr.apply(data, 0, result, 0, data.length, blockSize, identity, ctr.getStateAt(limit - 4, blockSize));
+        byte[] untouched = new byte[data.length];
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ctr.apply(data, 0, untouched, 0, data.length, blockSize, identity, ctr.getStateAt(limit - 3, blockSize)));
+        Assertions.assertArrayEquals(new byte[data.length], untouched);
+
+        ctr.setOverflowPolicy(CTR.OverflowPolicy.WRAP);
+        ctr.apply(data, 0, result, 0, data.length, blockSize, identity, ctr.getStateAt(limit - 3, blockSize));
+        Assertions.assertArrayEquals(new byte[blockSize], Arrays.copyOfRange(result, 3 * blockSize, 4 * blockSize));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ctr.setCounterWidth(blockSize - counterWidth + 1));
+    }
+
+    private static Stream<Integer> overflowPolicyTest() {
+        return Stream.of(1, 2, 4);
+    }
+
+    private static class Identity implements SymmetricEncrypter {
+
+        private final int blockSize;
+
+        Identity(int blockSize) {
+            this.blockSize = blockSize;
+        }
+
+        @Override
+        public int getBlockSize() {
+            return blockSize;
+        }
+
+        @Override
+        public byte[] encrypt(byte[] block) {
+            return block.clone();
+        }
+
+        @Override
+        public byte[] decrypt(byte[] block) {
+            return block.clone();
+        }
+
+    }
+
+}
@@ -0,0 +1,71 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import ru.namerpro.cryptography.permutaion.CompiledPermutation;
+import ru.namerpro.cryptography.permutaion.Permutation;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.Stream;
+
+class CompiledPermutationTest {
+
+    @ParameterizedTest(name = "Testing compiled permutation against rearrange (rule: {0}, input bits: {1}, output bits: {2})")
+    @MethodSource
+    void compiledPermutationMatchesRearrangeTest(Permutation.Rule rule, int inputBitsCount, int outputBitsCount) {
+        Random random = new Random(31L * inputBitsCount + outputBitsCount);
+        boolean isFirstOne = rule == Permutation.Rule.FROM_LEFT_FIRST_IS_ONE || rule == Permutation.Rule.FROM_RIGHT_FIRST_IS_ONE;
+        int[] pBlock = new int[outputBitsCount];
+        for (int i = 0; i < outputBitsCount; ++i) {
+            pBlock[i] = random.nextInt(inputBitsCount) + (isFirstOne ? 1 : 0);
+        }
+        CompiledPermutation permutation = Permutation.compile(pBlock, rule, inputBitsCount);
+
+        for (int attempt = 0; attempt < 50; ++attempt) {
+            byte[] input = new byte[(inputBitsCount + 7) / 8];
+            random.nextBytes(input);
+            int bitsInFirstByte = inputBitsCount - 8 * (input.length - 1);
+            input[0] &= (byte) ((1 << bitsInFirstByte) - 1);
+            byte leadingZeros = (byte) (bitsInFirstByte - 1 - (input[0] == 0 ? -1 : 31 - Integer.numberOfLeadingZeros(input[0] & 0xff)));
+
+            byte[] expected = Permutation.rearrange(input, leadingZeros, pBlock, rule);
+            Assertions.assertArrayEquals(expected, permutation.apply(input));
+            if (inputBitsCount <= 64 && outputBitsCount <= 64) {
+                long value = 0;
+                for (byte b : input) {
+                    value = (value << 8) | (b & 0xff);
+                }
+                long result = permutation.apply(value);
+                byte[] resultBytes = new byte[expected.length];
+                for (int i = resultBytes.length - 1; i >= 0; --i, result >>>= 8) {
+                    resultBytes[i] = (byte) result;
+                }
+                Assertions.assertArrayEquals(expected, resultBytes);
+            }
+        }
+    }
+
+    private static Stream<Arguments> compiledPermutationMatchesRearrangeTest() {
+        return Arrays.stream(Permutation.Rule.values())
+                .flatMap(rule -> Stream.of(
+                        Arguments.of(rule, 9, 8),
+                        Arguments.of(rule, 32, 32),
+                        Arguments.of(rule, 56, 48),
+                        Arguments.of(rule, 64, 64),
+                        Arguments.of(rule, 28, 13),
+                        Arguments.of(rule, 100, 130)
+                ));
+    }
+
+    @ParameterizedTest(name = "Testing compiled permutation rejects wrong pBlock (rule: {0})")
+    @MethodSource("rules")
+    void compiledPermutationWrongPBlockTest(Permutation.Rule rule) {
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> Permutation.compile(new int[] { 1, 2, 17 }, rule, 16));
+    }
+
+    private static Stream<Permutation.Rule> rules() {
+        return Arrays.stream(Permutation.Rule.values());
+    }
+
+}
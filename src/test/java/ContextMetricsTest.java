@@ -0,0 +1,62 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.namerpro.cryptography.context.SymmetricEncrypterContext;
+import ru.namerpro.cryptography.context.encrypter.Encrypter;
+import ru.namerpro.cryptography.encryptionstate.EncryptionState;
+import ru.namerpro.cryptography.metrics.ContextMetrics;
+import ru.namerpro.cryptography.metrics.MetricsSink;
+import ru.namerpro.cryptography.mode.Mode;
+import ru.namerpro.cryptography.padding.Padding;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+
+class ContextMetricsTest {
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest(name = "Testing context metrics (mode: {0})")
+    @EnumSource(value = Mode.class, names = { "ECB", "CBC", "CTR" })
+    void contextMetricsTest(Mode mode) throws ExecutionException, InterruptedException, IOException {
+        Random random = new Random(mode.ordinal());
+        byte[] key = new byte[8];
+        byte[] iv = mode == Mode.ECB ? null : new byte[mode == Mode.CTR ? 4 : 8];
+        byte[] data = new byte[1000];
+        random.nextBytes(key);
+        if (iv != null) {
+            random.nextBytes(iv);
+        }
+        random.nextBytes(data);
+        Path src = directory.resolve("src");
+        Path encryptedFile = directory.resolve("encrypted");
+        Files.write(src, data);
+
+        ContextMetrics metrics = new ContextMetrics();
+        try (var context = new SymmetricEncrypterContext(Encrypter.DES, key, mode, Padding.PKCS7, iv)) {
+            byte[] unmeasured = context.encrypt(data).get();
+            context.setMetrics(metrics);
+            byte[] encrypted = context.encrypt(data).get();
+            Assertions.assertArrayEquals(unmeasured, encrypted);
+            Assertions.assertArrayEquals(data, context.decrypt(encrypted).get());
+            Assertions.assertInstanceOf(EncryptionState.Success.class, context.encrypt(src.toString(), encryptedFile.toString()).get());
+            context.setMetrics(null);
+            context.decrypt(encrypted).get();
+        }
+
+        Assertions.assertEquals(3L * 1008, metrics.getBytes(Encrypter.DES, mode));
+        Assertions.assertEquals(3L * 126, metrics.getBlocks(Encrypter.DES, mode));
+        Assertions.assertEquals(2, metrics.getLatency(MetricsSink.Operation.ENCRYPT).getCount());
+        Assertions.assertEquals(1, metrics.getLatency(MetricsSink.Operation.DECRYPT).getCount());
+        Assertions.assertTrue(metrics.getStageNanos(MetricsSink.Stage.MODE) > 0);
+        Assertions.assertTrue(metrics.getStageNanos(MetricsSink.Stage.IO) > 0);
+        Assertions.assertTrue(metrics.getLatency(MetricsSink.Operation.ENCRYPT).getQuantile(1) > 0);
+        metrics.report();
+    }
+
+}
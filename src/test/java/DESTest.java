@@ -0,0 +1,60 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.namerpro.cryptography.symmetricencrypters.des.DES;
+
+import java.util.HexFormat;
+import java.util.Random;
+
+class DESTest {
+
+    @ParameterizedTest(name = "Testing DES (key: {0}, block: {1} -> {2})")
+    @CsvSource({
+            "133457799BBCDFF1, 0123456789ABCDEF, 85E813540F0AB405",
+            "0E329232EA6D0D73, 8787878787878787, 0000000000000000",
+            "0101010101010101, 95F8A5E5DD31D900, 8000000000000000"
+    })
+    void desStandardTest(String key, String block, String expected) {
+        DES des = new DES(HexFormat.of().parseHex(key));
+        Assertions.assertArrayEquals(HexFormat.of().parseHex(expected), des.encrypt(HexFormat.of().parseHex(block)));
+        Assertions.assertArrayEquals(HexFormat.of().parseHex(block), des.decrypt(HexFormat.of().parseHex(expected)));
+    }
+
+    @ParameterizedTest(name = "Testing DES in-place block API (key: {0}, block: {1} -> {2})")
+    @CsvSource({
+            "133457799BBCDFF1, 0123456789ABCDEF, 85E813540F0AB405"
+    })
+    void desInPlaceTest(String key, String block, String expected) {
+        DES des = new DES(HexFormat.of().parseHex(key));
+        byte[] buffer = new byte[24];
+        System.arraycopy(HexFormat.of().parseHex(block), 0, buffer, 8, 8);
+        des.encryptBlock(buffer, 8, buffer, 8);
+        Assertions.assertEquals(expected, HexFormat.of().withUpperCase().formatHex(buffer, 8, 16));
+        des.decryptBlock(buffer, 8, buffer, 16);
+        Assertions.assertEquals(block, HexFormat.of().withUpperCase().formatHex(buffer, 16, 24));
+    }
+
+    @ParameterizedTest(name = "Testing DES multi-block processing (blocks: {0})")
+    @ValueSource(ints = { 0, 1, 3, 4, 7, 8, 13 })
+    void desBatchTest(int blocksCount) {
+        Random random = new Random(blocksCount);
+        byte[] key = new byte[8];
+        random.nextBytes(key);
+        DES des = new DES(key);
+        byte[] data = new byte[8 * blocksCount];
+        random.nextBytes(data);
+
+        byte[] expected = new byte[data.length];
+        for (int i = 0; i < blocksCount; ++i) {
+            des.encryptBlock(data, i * 8, expected, i * 8);
+        }
+        byte[] encrypted = data.clone();
+        des.encryptBlocks(encrypted, 0, encrypted, 0, blocksCount);
+        Assertions.assertArrayEquals(expected, encrypted);
+        byte[] decrypted = new byte[data.length];
+        des.decryptBlocks(encrypted, 0, decrypted, 0, blocksCount);
+        Assertions.assertArrayEquals(data, decrypted);
+    }
+
+}
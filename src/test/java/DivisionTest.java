@@ -9,7 +9,9 @@ class DivisionTest {
     @CsvSource({
             "0xAD, 0x1B, 0x0D",
             "0x00, 0x22, 0x00",
-            "0x0F, 0x5, 0x3"
+            "0x0F, 0x5, 0x3",
+            "0xAD, 0x01, 0xAD",
+            "0x01, 0x01, 0x01"
     })
     void divideStandardTest(int x, int mod, int expected) {
         Assertions.assertEquals((byte) expected, CryptoGF.divide((byte) x, (byte) mod));
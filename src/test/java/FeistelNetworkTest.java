@@ -0,0 +1,68 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import ru.namerpro.cryptography.api.symmetric.networksfunctions.feistel.FeistelFunction;
+import ru.namerpro.cryptography.network.FeistelNetwork;
+import ru.namerpro.cryptography.symmetricencrypters.deal.DEAL;
+
+import java.util.Random;
+
+class FeistelNetworkTest {
+
+    private static final FeistelFunction MIXING_FUNCTION = (block, roundKey) -> {
+        byte[] result = new byte[block.length];
+        for (int i = 0; i < block.length; ++i) {
+            result[i] = (byte) ((block[(i + 1) % block.length] * 31 + roundKey[i % roundKey.length]) ^ block[i]);
+        }
+        return result;
+    };
+
+    @ParameterizedTest(name = "Testing batch Feistel network (block size: {0}, blocks: {1})")
+    @CsvSource({ "8, 1", "8, 37", "16, 5", "32, 4", "6, 10" })
+    void batchMatchesSingleBlockTest(int blockSize, int blocksCount) {
+        Random random = new Random(blockSize * 1000L + blocksCount);
+        byte[] key = new byte[8];
+        random.nextBytes(key);
+        FeistelNetwork network = new FeistelNetwork(MIXING_FUNCTION, key, k -> new byte[][] { k, k.clone(), new byte[] { 1, 2, 3 } }, 3);
+        byte[] data = new byte[blockSize * blocksCount];
+        random.nextBytes(data);
+
+        byte[] expected = new byte[data.length];
+        for (int i = 0; i < blocksCount; ++i) {
+            network.encrypt(data, i * blockSize, expected, i * blockSize, blockSize);
+        }
+        byte[] encrypted = new byte[data.length];
+        network.encrypt(data, 0, encrypted, 0, blockSize, blocksCount);
+        Assertions.assertArrayEquals(expected, encrypted);
+
+        byte[] decrypted = new byte[data.length];
+        network.decrypt(encrypted, 0, decrypted, 0, blockSize, blocksCount);
+        Assertions.assertArrayEquals(data, decrypted);
+    }
+
+    @ParameterizedTest(name = "Testing DEAL batch processing (key size: {0})")
+    @CsvSource({ "16", "24", "32" })
+    void dealBatchTest(int keySize) {
+        Random random = new Random(keySize);
+        byte[] key = new byte[keySize];
+        byte[] data = new byte[16 * 9];
+        random.nextBytes(key);
+        random.nextBytes(data);
+        DEAL deal = new DEAL(key);
+
+        byte[] encrypted = new byte[data.length];
+        deal.encryptBlocks(data, 0, encrypted, 0, 9);
+        for (int i = 0; i < 9; ++i) {
+            byte[] block = new byte[16];
+            System.arraycopy(data, i * 16, block, 0, 16);
+            byte[] expected = deal.encrypt(block);
+            for (int j = 0; j < 16; ++j) {
+                Assertions.assertEquals(expected[j], encrypted[i * 16 + j]);
+            }
+        }
+        byte[] decrypted = new byte[data.length];
+        deal.decryptBlocks(encrypted, 0, decrypted, 0, 9);
+        Assertions.assertArrayEquals(data, decrypted);
+    }
+
+}
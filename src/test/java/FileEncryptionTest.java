@@ -0,0 +1,206 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.namerpro.cryptography.context.IoExecutors;
+import ru.namerpro.cryptography.context.SymmetricEncrypterContext;
+import ru.namerpro.cryptography.context.encrypter.Encrypter;
+import ru.namerpro.cryptography.encryptionstate.EncryptionState;
+import ru.namerpro.cryptography.mode.Mode;
+import ru.namerpro.cryptography.padding.Padding;
+import ru.namerpro.cryptography.symmetricencrypters.rijndael.Rijndael;
+import ru.namerpro.cryptography.utils.Pair;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+class FileEncryptionTest {
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest(name = "Testing streaming file encryption (mode: {0}, size: {1})")
+    @MethodSource
+    void fileEncryptionMatchesInMemoryTest(Mode mode, int size) throws IOException, ExecutionException, InterruptedException {
+        Random random = new Random(size);
+        byte[] key = new byte[16];
+        byte[] iv = new byte[mode == Mode.CTR ? 8 : 16];
+        byte[] data = new byte[size];
+        random.nextBytes(key);
+        random.nextBytes(iv);
+        random.nextBytes(data);
+
+        Path src = directory.resolve("src");
+        Path encrypted = directory.resolve("encrypted");
+        Path decrypted = directory.resolve("decrypted");
+        Files.write(src, data);
+
+        try (var context = new SymmetricEncrypterContext(Encrypter.RIJNDAEL, key, mode, Padding.PKCS7, iv, Rijndael.RijndaelBlockSize.SZ_128_BITS, 283)) {
+            Assertions.assertInstanceOf(EncryptionState.Success.class, context.encrypt(src.toString(), encrypted.toString()).get());
+            Assertions.assertArrayEquals(context.encrypt(data).get(), Files.readAllBytes(encrypted));
+            Assertions.assertInstanceOf(EncryptionState.Success.class, context.decrypt(encrypted.toString(), decrypted.toString()).get());
+            Assertions.assertArrayEquals(data, Files.readAllBytes(decrypted));
+        }
+    }
+
+    private static Stream<Arguments> fileEncryptionMatchesInMemoryTest() {
+        return Stream.of(Mode.CBC, Mode.PCBC, Mode.CTR, Mode.RD)
+                .flatMap(mode -> Stream.of(0, 17, 1 << 20, (1 << 20) + 5, 3 << 20).map(size -> Arguments.of(mode, size)));
+    }
+
+    @ParameterizedTest(name = "Testing many file jobs in flight on thread-per-task executor (mode: {0})")
+    @EnumSource(value = Mode.class, names = { "CBC", "CTR" })
+    void manyFileJobsInFlightTest(Mode mode) throws IOException, ExecutionException, InterruptedException {
+        Random random = new Random(mode.ordinal());
+        byte[] key = new byte[8];
+        byte[] iv = new byte[mode == Mode.CTR ? 4 : 8];
+        random.nextBytes(key);
+        random.nextBytes(iv);
+        byte[][] data = new byte[200][];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = new byte[random.nextInt(5000)];
+            random.nextBytes(data[i]);
+            Files.write(directory.resolve("src" + i), data[i]);
+        }
+
+        try (var context = new SymmetricEncrypterContext(Encrypter.DES, key, mode, Padding.PKCS7, iv)) {
+            context.setFileExecutor(IoExecutors.threadPerTask());
+            List<CompletableFuture<EncryptionState>> jobs = new ArrayList<>();
+            for (int i = 0; i < data.length; ++i) {
+                String src = directory.resolve("src" + i).toString();
+                String encrypted = directory.resolve("encrypted" + i).toString();
+                String decrypted = directory.resolve("decrypted" + i).toString();
+                jobs.add(context.encrypt(src, encrypted).thenCompose(state -> context.decrypt(encrypted, decrypted)));
+            }
+            for (int i = 0; i < data.length; ++i) {
+                Assertions.assertInstanceOf(EncryptionState.Success.class, jobs.get(i).get());
+                Assertions.assertArrayEquals(data[i], Files.readAllBytes(directory.resolve("decrypted" + i)));
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "Testing batch file encryption (parallelism: {0})")
+    @ValueSource(ints = { 1, 4 })
+    void batchFileEncryptionTest(int parallelism) throws IOException, ExecutionException, InterruptedException {
+        Random random = new Random(parallelism);
+        byte[] key = new byte[8];
+        byte[] iv = new byte[8];
+        random.nextBytes(key);
+        random.nextBytes(iv);
+        byte[][] data = new byte[100][];
+        List<Pair<String, String>> toEncrypt = new ArrayList<>();
+        List<Pair<String, String>> toDecrypt = new ArrayList<>();
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = new byte[i == 50 ? (3 << 20) + 1 : random.nextInt(3000)];
+            random.nextBytes(data[i]);
+            Files.write(directory.resolve("src" + i), data[i]);
+            toEncrypt.add(Pair.of(directory.resolve("src" + i).toString(), directory.resolve("encrypted" + i).toString()));
+            toDecrypt.add(Pair.of(directory.resolve("encrypted" + i).toString(), directory.resolve("decrypted" + i).toString()));
+        }
+        toEncrypt.add(Pair.of(directory.resolve("missing").toString(), directory.resolve("encrypted-missing").toString()));
+
+        try (var context = new SymmetricEncrypterContext(Encrypter.DES, key, Mode.CBC, Padding.PKCS7, iv)) {
+            List<EncryptionState> encrypted = context.encrypt(toEncrypt, parallelism).get();
+            Assertions.assertEquals(data.length + 1, encrypted.size());
+            Assertions.assertInstanceOf(EncryptionState.Error.class, encrypted.get(data.length));
+            List<EncryptionState> decrypted = context.decrypt(toDecrypt.stream(), parallelism).get();
+            for (int i = 0; i < data.length; ++i) {
+                Assertions.assertInstanceOf(EncryptionState.Success.class, encrypted.get(i));
+                Assertions.assertInstanceOf(EncryptionState.Success.class, decrypted.get(i));
+                Assertions.assertArrayEquals(context.encrypt(data[i]).get(), Files.readAllBytes(directory.resolve("encrypted" + i)));
+                Assertions.assertArrayEquals(data[i], Files.readAllBytes(directory.resolve("decrypted" + i)));
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "Testing memory-mapped file encryption (mode: {0}, size: {1})")
+    @MethodSource
+    void memoryMappedFileEncryptionTest(Mode mode, int size) throws IOException, ExecutionException, InterruptedException {
+        Random random = new Random(size);
+        byte[] key = new byte[16];
+        byte[] iv = mode == Mode.ECB ? null : new byte[mode == Mode.CTR ? 8 : 16];
+        byte[] data = new byte[size];
+        random.nextBytes(key);
+        if (iv != null) {
+            random.nextBytes(iv);
+        }
+        random.nextBytes(data);
+
+        Path src = directory.resolve("src");
+        Path encrypted = directory.resolve("encrypted");
+        Path decrypted = directory.resolve("decrypted");
+        Files.write(src, data);
+        Files.write(decrypted, new byte[size + 100]);
+
+        try (var context = new SymmetricEncrypterContext(Encrypter.RIJNDAEL, key, mode, Padding.PKCS7, iv, Rijndael.RijndaelBlockSize.SZ_128_BITS, 283)) {
+            context.setMemoryMapped(true);
+            context.setParallelChunkSize(4096);
+            Assertions.assertInstanceOf(EncryptionState.Success.class, context.encrypt(src.toString(), encrypted.toString()).get());
+            Assertions.assertArrayEquals(context.encrypt(data).get(), Files.readAllBytes(encrypted));
+            Assertions.assertInstanceOf(EncryptionState.Success.class, context.decrypt(encrypted.toString(), decrypted.toString()).get());
+            Assertions.assertArrayEquals(data, Files.readAllBytes(decrypted));
+        }
+    }
+
+    private static Stream<Arguments> memoryMappedFileEncryptionTest() {
+        return Stream.of(Mode.ECB, Mode.CTR, Mode.RD, Mode.CBC)
+                .flatMap(mode -> Stream.of(0, 15, 16, 100_003, (1 << 20) + 5).map(size -> Arguments.of(mode, size)));
+    }
+
+    @ParameterizedTest(name = "Testing random access decryption (mode: {0}, size: {1})")
+    @MethodSource
+    void randomAccessDecryptionTest(Mode mode, int size) throws IOException, ExecutionException, InterruptedException {
+        Random random = new Random(size);
+        byte[] key = new byte[16];
+        byte[] iv = mode == Mode.ECB ? null : new byte[mode == Mode.CTR ? 8 : 16];
+        byte[] data = new byte[size];
+        random.nextBytes(key);
+        if (iv != null) {
+            random.nextBytes(iv);
+        }
+        random.nextBytes(data);
+        Path encrypted = directory.resolve("encrypted");
+
+        try (var context = new SymmetricEncrypterContext(Encrypter.RIJNDAEL, key, mode, Padding.PKCS7, iv, Rijndael.RijndaelBlockSize.SZ_128_BITS, 283)) {
+            Files.write(encrypted, context.encrypt(data).get());
+            try (SeekableByteChannel channel = context.openDecryptingChannel(encrypted.toString())) {
+                Assertions.assertEquals(size, channel.size());
+                for (int i = 0; i < 50; ++i) {
+                    int from = random.nextInt(size + 1);
+                    int length = random.nextInt(Math.min(size - from, 100_000) + 1);
+                    ByteBuffer buffer = ByteBuffer.allocate(length);
+                    channel.position(from);
+                    while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                    }
+                    Assertions.assertArrayEquals(Arrays.copyOfRange(data, from, from + length), buffer.array());
+                }
+                channel.position(size);
+                Assertions.assertEquals(-1, channel.read(ByteBuffer.allocate(1)));
+            }
+            Assertions.assertThrows(IllegalArgumentException.class, () -> {
+                try (var cbc = new SymmetricEncrypterContext(Encrypter.DES, new byte[8], Mode.CBC, Padding.PKCS7, new byte[8])) {
+                    cbc.openDecryptingChannel(encrypted.toString());
+                }
+            });
+        }
+    }
+
+    private static Stream<Arguments> randomAccessDecryptionTest() {
+        return Stream.of(Mode.ECB, Mode.CTR, Mode.RD)
+                .flatMap(mode -> Stream.of(0, 1, 16, 1000, 300_001).map(size -> Arguments.of(mode, size)));
+    }
+
+}
@@ -0,0 +1,160 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.namerpro.cryptography.api.symmetric.modes.ChainingState;
+import ru.namerpro.cryptography.context.SymmetricEncrypterContext;
+import ru.namerpro.cryptography.context.encrypter.Encrypter;
+import ru.namerpro.cryptography.encryptionstate.EncryptionState;
+import ru.namerpro.cryptography.mode.Mode;
+import ru.namerpro.cryptography.mode.impl.GCM;
+import ru.namerpro.cryptography.padding.Padding;
+import ru.namerpro.cryptography.symmetricencrypters.rijndael.Rijndael;
+import ru.namerpro.cryptography.utils.stateless.CryptoGF;
+import ru.namerpro.cryptography.utils.stateless.GHashTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+class GCMTest {
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest(name = "Testing GHASH tables against bitwise multiplication (seed: {0})")
+    @ValueSource(ints = { 1, 2, 3, 4, 5 })
+    void tableMultiplicationTest(int seed) {
+        Random random = new Random(seed);
+        byte[] h = new byte[16];
+        random.nextBytes(h);
+        GHashTable table = new GHashTable(h);
+        for (int i = 0; i < 100; ++i) {
+            byte[] x = new byte[16];
+            random.nextBytes(x);
+            long[] product = new long[2];
+            table.update(product, x, 0, x.length);
+            byte[] expected = CryptoGF.multiply128(x, h);
+            Assertions.assertEquals(ByteBuffer.wrap(expected).getLong(0), product[0]);
+            Assertions.assertEquals(ByteBuffer.wrap(expected).getLong(8), product[1]);
+        }
+    }
+
+    @ParameterizedTest(name = "Testing GCM against reference vectors (test case {0})")
+    @CsvSource({
+            "1, 00000000000000000000000000000000, 000000000000000000000000, '', '', 58e2fccefa7e3061367f1d57a4e7455a",
+            "2, 00000000000000000000000000000000, 000000000000000000000000, 00000000000000000000000000000000, 0388dace60b6a392f328c2b971b2fe78, ab6e47d42cec13bdf53a67b21257bddf",
+            "3, feffe9928665731c6d6a8f9467308308, cafebabefacedbaddecaf888, "
+                    + "d9313225f88406e5a55909c5aff5269a86a7a9531534f7da2e4c303d8a318a721c3c0c95956809532fcf0e2449a6b525b16aedf5aa0de657ba637b391aafd255, "
+                    + "42831ec2217774244b7221b784d0d49ce3aa212f2c02a4e035c17e2329aca12e21d514b25466931c7d8f6a5aac84aa051ba30b396a0aac973d58e091473f5985, "
+                    + "4d5c2af327cd64a62cf35abd2ba6fab4"
+    })
+    void referenceVectorsTest(int testCase, String key, String iv, String plain, String cipher, String tag) {
+        HexFormat hex = HexFormat.of();
+        Rijndael rijndael = new Rijndael(Rijndael.RijndaelBlockSize.SZ_128_BITS, hex.parseHex(key), (byte) 0x1B);
+        GCM gcm = new GCM(ForkJoinPool.commonPool(), hex.parseHex(iv), 16);
+        byte[] data = hex.parseHex(plain);
+
+        ChainingState state = gcm.getInitialState(16);
+        byte[] encrypted = new byte[data.length];
+        gcm.apply(data, 0, encrypted, 0, data.length, 16, rijndael, state);
+        Assertions.assertEquals(cipher, hex.formatHex(encrypted));
+        Assertions.assertEquals(tag, hex.formatHex(gcm.getTag(state, rijndael)));
+
+        GCM perMessage = new GCM(ForkJoinPool.commonPool(), 16);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> perMessage.getInitialState(16));
+        state = perMessage.getInitialState(16, hex.parseHex(iv));
+        byte[] decrypted = new byte[data.length];
+        perMessage.reverse(ByteBuffer.wrap(encrypted), 0, ByteBuffer.allocateDirect(data.length), 0, 0, 16, rijndael, state);
+        perMessage.reverse(encrypted, 0, decrypted, 0, data.length, 16, rijndael, state);
+        Assertions.assertArrayEquals(data, decrypted);
+        Assertions.assertEquals(tag, hex.formatHex(perMessage.getTag(state, rijndael)));
+    }
+
+    @ParameterizedTest(name = "Testing GCM context with tampered data (padding: {0})")
+    @EnumSource(Padding.class)
+    void contextDetectsTamperingTest(Padding padding) throws IOException, ExecutionException, InterruptedException {
+        Random random = new Random(padding.ordinal());
+        byte[] key = new byte[16];
+        byte[] data = new byte[200_003];
+        random.nextBytes(key);
+        random.nextBytes(data);
+        Path src = directory.resolve("src");
+        Path encrypted = directory.resolve("encrypted");
+        Path decrypted = directory.resolve("decrypted");
+        Files.write(src, data);
+
+        try (var context = new SymmetricEncrypterContext(Encrypter.RIJNDAEL, key, Mode.GCM, padding, null, Rijndael.RijndaelBlockSize.SZ_128_BITS, 283)) {
+            byte[] inMemory = context.encrypt(data).get();
+            Assertions.assertArrayEquals(data, context.decrypt(inMemory).get());
+            ByteBuffer direct = ByteBuffer.allocateDirect(inMemory.length);
+            Assertions.assertEquals(inMemory.length, context.encrypt(ByteBuffer.wrap(data), direct).get());
+            direct.flip();
+            ByteBuffer plain = ByteBuffer.allocate(data.length);
+            Assertions.assertEquals(data.length, context.decrypt(direct, plain).get());
+            Assertions.assertArrayEquals(data, plain.array());
+
+            Assertions.assertInstanceOf(EncryptionState.Success.class, context.encrypt(src.toString(), encrypted.toString()).get());
+            Assertions.assertEquals(inMemory.length, Files.size(encrypted));
+            Assertions.assertInstanceOf(EncryptionState.Success.class, context.decrypt(encrypted.toString(), decrypted.toString()).get());
+            Assertions.assertArrayEquals(data, Files.readAllBytes(decrypted));
+
+            int lastByte = inMemory.length - GCM.TAG_SIZE - 1;
+            for (int position : new int[] { 0, inMemory.length / 2, lastByte - GHashTable.BLOCK_SIZE + 1, lastByte, inMemory.length - 1 }) {
+                byte[] tampered = inMemory.clone();
+                tampered[position] ^= 1;
+                ExecutionException error = Assertions.assertThrows(ExecutionException.class, () -> context.decrypt(tampered).get());
+                Assertions.assertInstanceOf(IllegalArgumentException.class, error.getCause());
+                Assertions.assertTrue(error.getCause().getMessage().contains("tag"));
+                ByteBuffer target = ByteBuffer.allocate(data.length);
+                error = Assertions.assertThrows(ExecutionException.class, () -> context.decrypt(ByteBuffer.wrap(tampered), target).get());
+                Assertions.assertTrue(error.getCause().getMessage().contains("tag"));
+                Assertions.assertEquals(ByteBuffer.allocate(data.length), target);
+                Files.write(encrypted, tampered);
+                EncryptionState state = context.decrypt(encrypted.toString(), decrypted.toString()).get();
+                Assertions.assertInstanceOf(EncryptionState.Error.class, state);
+                Assertions.assertTrue(((EncryptionState.Error) state).error().getMessage().contains("tag"));
+                Assertions.assertEquals(0, Files.size(decrypted));
+            }
+            byte[] misaligned = Arrays.copyOf(inMemory, inMemory.length - 1);
+            ExecutionException misalignedError = Assertions.assertThrows(ExecutionException.class, () -> context.decrypt(misaligned).get());
+            Assertions.assertTrue(misalignedError.getCause().getMessage().contains("multiple of block size"));
+            misalignedError = Assertions.assertThrows(ExecutionException.class, () -> context.decrypt(ByteBuffer.wrap(misaligned), ByteBuffer.allocate(data.length)).get());
+            Assertions.assertTrue(misalignedError.getCause().getMessage().contains("multiple of block size"));
+            Assertions.assertThrows(IllegalArgumentException.class, context::newIncrementalEncrypter);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SymmetricEncrypterContext(Encrypter.DES, new byte[8], Mode.GCM, padding, null));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new SymmetricEncrypterContext(Encrypter.RIJNDAEL, key, Mode.GCM, padding, new byte[GCM.IV_SIZE], Rijndael.RijndaelBlockSize.SZ_128_BITS, 283));
+    }
+
+    @ParameterizedTest(name = "Testing GCM context nonces (messages: {0})")
+    @ValueSource(ints = { 2, 50 })
+    void contextUsesFreshNonceTest(int messagesCount) throws ExecutionException, InterruptedException {
+        byte[] data = new byte[100];
+        try (var context = new SymmetricEncrypterContext(Encrypter.RIJNDAEL, new byte[16], Mode.GCM, Padding.PKCS7, null, Rijndael.RijndaelBlockSize.SZ_128_BITS, 283)) {
+            Set<String> nonces = new HashSet<>();
+            Set<String> ciphertexts = new HashSet<>();
+            for (int i = 0; i < messagesCount; ++i) {
+                byte[] encrypted = context.encrypt(data).get();
+                Assertions.assertEquals(GCM.IV_SIZE + 112 + GCM.TAG_SIZE, encrypted.length);
+                nonces.add(HexFormat.of().formatHex(encrypted, 0, GCM.IV_SIZE));
+                ciphertexts.add(HexFormat.of().formatHex(encrypted, GCM.IV_SIZE, encrypted.length));
+                Assertions.assertArrayEquals(data, context.decrypt(encrypted).get());
+            }
+            Assertions.assertEquals(messagesCount, nonces.size());
+            Assertions.assertEquals(messagesCount, ciphertexts.size());
+        }
+    }
+
+}
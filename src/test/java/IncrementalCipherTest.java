@@ -0,0 +1,102 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import ru.namerpro.cryptography.context.IncrementalCipher;
+import ru.namerpro.cryptography.context.SymmetricEncrypterContext;
+import ru.namerpro.cryptography.context.encrypter.Encrypter;
+import ru.namerpro.cryptography.mode.Mode;
+import ru.namerpro.cryptography.padding.Padding;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+class IncrementalCipherTest {
+
+    @ParameterizedTest(name = "Testing incremental update/doFinal (mode: {0}, padding: {1}, size: {2})")
+    @MethodSource
+    void incrementalMatchesOneShotTest(Mode mode, Padding padding, int size) throws ExecutionException, InterruptedException {
+        Random random = new Random(size + 31L * mode.ordinal());
+        byte[] key = new byte[8];
+        byte[] iv = mode == Mode.ECB ? null : new byte[mode == Mode.CTR ? 4 : 8];
+        byte[] data = new byte[size];
+        random.nextBytes(key);
+        if (iv != null) {
+            random.nextBytes(iv);
+        }
+        random.nextBytes(data);
+
+        try (var context = new SymmetricEncrypterContext(Encrypter.DES, key, mode, padding, iv)) {
+            byte[] expected = context.encrypt(data).get();
+            IncrementalCipher encrypter = context.newIncrementalEncrypter();
+            IncrementalCipher decrypter = context.newIncrementalDecrypter();
+            for (int message = 0; message < 2; ++message) {
+                byte[] encrypted = feed(encrypter, data, random);
+                Assertions.assertArrayEquals(expected, encrypted);
+                Assertions.assertArrayEquals(context.decrypt(expected).get(), feed(decrypter, encrypted, random));
+            }
+        }
+    }
+
+    private static Stream<Arguments> incrementalMatchesOneShotTest() {
+        return Stream.of(Mode.ECB, Mode.CBC, Mode.PCBC, Mode.CFB, Mode.OFB, Mode.CTR, Mode.RD)
+                .flatMap(mode -> Stream.of(Padding.PKCS7, Padding.ANSI_X_923)
+                        .flatMap(padding -> Stream.of(0, 1, 8, 100, 1024, 5003).map(size -> Arguments.of(mode, padding, size))));
+    }
+
+    @ParameterizedTest(name = "Testing OFB with keystream generated ahead (buffer size: {0}, size: {1})")
+    @MethodSource
+    void keystreamBufferTest(int bufferSize, int size) throws ExecutionException, InterruptedException {
+        Random random = new Random(bufferSize + 31L * size);
+        byte[] key = new byte[8];
+        byte[] iv = new byte[8];
+        byte[] data = new byte[size];
+        random.nextBytes(key);
+        random.nextBytes(iv);
+        random.nextBytes(data);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+
+        try (var reference = new SymmetricEncrypterContext(Encrypter.DES, key, Mode.OFB, Padding.PKCS7, iv);
+             var context = new SymmetricEncrypterContext(executor, null, Encrypter.DES, key, Mode.OFB, Padding.PKCS7, iv)) {
+            context.setKeystreamBufferSize(bufferSize);
+            byte[] expected = reference.encrypt(data).get();
+            Assertions.assertArrayEquals(expected, context.encrypt(data).get());
+            Assertions.assertArrayEquals(data, context.decrypt(expected).get());
+            Assertions.assertEquals(0, executor.getTaskCount());
+            IncrementalCipher encrypter = context.newIncrementalEncrypter();
+            IncrementalCipher decrypter = context.newIncrementalDecrypter();
+            for (int message = 0; message < 2; ++message) {
+                Assertions.assertArrayEquals(expected, feed(encrypter, data, random));
+                Assertions.assertArrayEquals(data, feed(decrypter, expected, random));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Stream<Arguments> keystreamBufferTest() {
+        return Stream.of(0, 8, 100, 4096)
+                .flatMap(bufferSize -> Stream.of(0, 7, 1024, 50_003).map(size -> Arguments.of(bufferSize, size)));
+    }
+
+    private static byte[] feed(IncrementalCipher cipher, byte[] data, Random random) {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        int offset = 0;
+        while (offset < data.length) {
+            int length = Math.min(random.nextInt(40), data.length - offset);
+            byte[] out = new byte[cipher.getUpdateOutputSize(length) + 3];
+            int written = cipher.update(data, offset, length, out, 3);
+            result.write(out, 3, written);
+            offset += length;
+        }
+        byte[] tail = cipher.doFinal(data, offset, 0);
+        result.write(tail, 0, tail.length);
+        return result.toByteArray();
+    }
+
+}
@@ -1,4 +1,5 @@
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import ru.namerpro.cryptography.utils.stateless.CryptoGF;
@@ -24,4 +25,14 @@ class InversionTest {
         Assertions.assertThrows(ArithmeticException.class, () -> CryptoGF.inverse8((byte) x, (byte) mod));
     }
 
+    @Test
+    void inversion8AllIrreducibleModuliTest() {
+        for (byte mod : CryptoGF.getIrreduciblePolynomials8()) {
+            for (int x = 1; x < 256; ++x) {
+                Assertions.assertEquals((byte) 1, CryptoGF.multiply((byte) x, CryptoGF.inverse8((byte) x, mod), mod));
+                Assertions.assertEquals(CryptoGF.pow((byte) x, 254, mod), CryptoGF.inverse8((byte) x, mod));
+            }
+        }
+    }
+
 }
@@ -0,0 +1,69 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
+import ru.namerpro.cryptography.context.SymmetricEncrypterContext;
+import ru.namerpro.cryptography.context.cache.KeyScheduleCache;
+import ru.namerpro.cryptography.context.encrypter.Encrypter;
+import ru.namerpro.cryptography.mode.Mode;
+import ru.namerpro.cryptography.padding.Padding;
+import ru.namerpro.cryptography.symmetricencrypters.des.DES;
+import ru.namerpro.cryptography.symmetricencrypters.rijndael.Rijndael;
+
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+
+class KeyScheduleCacheTest {
+
+    @ParameterizedTest(name = "Testing key schedule cache (encrypter: {0})")
+    @EnumSource(value = Encrypter.class, names = { "DES", "DEAL", "RIJNDAEL" })
+    void cachedContextTest(Encrypter encrypter) throws ExecutionException, InterruptedException {
+        Random random = new Random(encrypter.ordinal());
+        byte[] key = new byte[encrypter == Encrypter.DES ? 8 : 16];
+        byte[] iv = new byte[encrypter == Encrypter.DES ? 8 : 16];
+        byte[] data = new byte[777];
+        random.nextBytes(key);
+        random.nextBytes(iv);
+        random.nextBytes(data);
+        Object[] options = encrypter == Encrypter.RIJNDAEL ? new Object[] { Rijndael.RijndaelBlockSize.SZ_128_BITS, 0x1B } : new Object[0];
+
+        byte[] expected;
+        try (var context = new SymmetricEncrypterContext(encrypter, key, Mode.CBC, Padding.PKCS7, iv, options)) {
+            expected = context.encrypt(data).get();
+        }
+
+        KeyScheduleCache cache = new KeyScheduleCache(4);
+        for (int i = 0; i < 3; ++i) {
+            try (var context = new SymmetricEncrypterContext(cache, encrypter, key.clone(), Mode.CBC, Padding.PKCS7, iv, options)) {
+                byte[] encrypted = context.encrypt(data).get();
+                Assertions.assertArrayEquals(expected, encrypted);
+                Assertions.assertArrayEquals(data, context.decrypt(encrypted).get());
+            }
+        }
+        Assertions.assertEquals(1, cache.getMisses());
+        Assertions.assertEquals(2, cache.getHits());
+        Assertions.assertEquals(1, cache.size());
+    }
+
+    @Test
+    void evictionTest() {
+        KeyScheduleCache cache = new KeyScheduleCache(1);
+        byte[] firstKey = { 1, 2, 3, 4, 5, 6, 7, 8 };
+        byte[] secondKey = { 8, 7, 6, 5, 4, 3, 2, 1 };
+        byte[] block = { 0, 1, 2, 3, 4, 5, 6, 7 };
+        byte[] expected = new DES(firstKey).encrypt(block);
+
+        KeyScheduleCache.Lease first = cache.acquire(Encrypter.DES, firstKey, new Object[0], () -> new DES(firstKey));
+        SymmetricEncrypter encrypter = first.getEncrypter();
+        try (KeyScheduleCache.Lease second = cache.acquire(Encrypter.DES, secondKey, new Object[0], () -> new DES(secondKey))) {
+            Assertions.assertEquals(1, cache.getEvictions());
+            Assertions.assertEquals(1, cache.size());
+            Assertions.assertArrayEquals(expected, encrypter.encrypt(block));
+        }
+        first.close();
+        Assertions.assertArrayEquals(new DES(new byte[8]).encrypt(block), encrypter.encrypt(block));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new KeyScheduleCache(0));
+    }
+
+}
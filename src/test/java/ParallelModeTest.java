@@ -0,0 +1,177 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
+import ru.namerpro.cryptography.api.symmetric.modes.ChainingState;
+import ru.namerpro.cryptography.context.SymmetricEncrypterContext;
+import ru.namerpro.cryptography.context.encrypter.Encrypter;
+import ru.namerpro.cryptography.mode.Mode;
+import ru.namerpro.cryptography.mode.impl.*;
+import ru.namerpro.cryptography.padding.Padding;
+import ru.namerpro.cryptography.symmetricencrypters.deal.DEAL;
+import ru.namerpro.cryptography.symmetricencrypters.des.DES;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+class ParallelModeTest {
+
+    @ParameterizedTest(name = "Testing independence of result from parallel chunk size (mode: {0}, chunk size: {1})")
+    @MethodSource
+    void chunkSizeDoesNotAffectResultTest(Mode mode, int chunkSize) throws ExecutionException, InterruptedException {
+        Random random = new Random(chunkSize);
+        byte[] key = new byte[8];
+        byte[] iv = mode == Mode.ECB ? null : new byte[mode == Mode.CTR ? 4 : 8];
+        byte[] data = new byte[100_003];
+        random.nextBytes(key);
+        if (iv != null) {
+            random.nextBytes(iv);
+        }
+        random.nextBytes(data);
+
+        try (var reference = new SymmetricEncrypterContext(Encrypter.DES, key, mode, Padding.PKCS7, iv);
+             var context = new SymmetricEncrypterContext(Encrypter.DES, key, mode, Padding.PKCS7, iv)) {
+            reference.setParallelChunkSize(Integer.MAX_VALUE);
+            context.setParallelChunkSize(chunkSize);
+            byte[] encrypted = context.encrypt(data).get();
+            Assertions.assertArrayEquals(reference.encrypt(data).get(), encrypted);
+            Assertions.assertArrayEquals(data, context.decrypt(encrypted).get());
+        }
+    }
+
+    private static Stream<Arguments> chunkSizeDoesNotAffectResultTest() {
+        return Stream.of(Mode.ECB, Mode.CBC, Mode.PCBC, Mode.CFB, Mode.CTR, Mode.RD)
+                .flatMap(mode -> Stream.of(1, 8, 100, 4096, ParallelMode.DEFAULT_CHUNK_SIZE).map(chunkSize -> Arguments.of(mode, chunkSize)));
+    }
+
+    @ParameterizedTest(name = "Testing parallel modes on a plain executor (chunk size: {0})")
+    @MethodSource
+    void plainExecutorTest(int chunkSize) {
+        ExecutorService service = Executors.newFixedThreadPool(3);
+        try {
+            Random random = new Random(chunkSize);
+            byte[] key = new byte[8];
+            byte[] iv = new byte[8];
+            byte[] data = new byte[8 * 1000];
+            random.nextBytes(key);
+            random.nextBytes(iv);
+            random.nextBytes(data);
+            DES des = new DES(key);
+
+            for (ParallelMode mode : new ParallelMode[] { new ECB(service), new CBC(service, iv), new PCBC(service, iv), new CFB(service, iv), new RD(service, iv) }) {
+                byte[] expected = mode.apply(data, 8, des);
+                mode.setChunkSize(chunkSize);
+                byte[] encrypted = mode.apply(data, 8, des);
+                Assertions.assertArrayEquals(expected, encrypted);
+                Assertions.assertArrayEquals(data, mode.reverse(encrypted, 8, des));
+            }
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    private static Stream<Integer> plainExecutorTest() {
+        return Stream.of(8, 24, 1000);
+    }
+
+    @ParameterizedTest(name = "Testing contexts sharing an executor (max parallelism: {0})")
+    @MethodSource
+    void sharedExecutorTest(int parallelism) throws ExecutionException, InterruptedException {
+        ExecutorService service = Executors.newFixedThreadPool(2);
+        try {
+            Random random = new Random(parallelism);
+            byte[] key = new byte[8];
+            byte[] iv = new byte[8];
+            byte[] data = new byte[50_000];
+            random.nextBytes(key);
+            random.nextBytes(iv);
+            random.nextBytes(data);
+
+            byte[] expected;
+            try (var reference = new SymmetricEncrypterContext(Encrypter.DES, key, Mode.CBC, Padding.PKCS7, iv)) {
+                expected = reference.encrypt(data).get();
+            }
+            List<SymmetricEncrypterContext> contexts = new ArrayList<>();
+            for (ExecutorService executor : new ExecutorService[] { service, null }) {
+                for (int i = 0; i < 4; ++i) {
+                    var context = new SymmetricEncrypterContext(executor, null, Encrypter.DES, key, Mode.CBC, Padding.PKCS7, iv);
+                    context.setParallelChunkSize(1024);
+                    context.setMaxParallelism(parallelism);
+                    contexts.add(context);
+                }
+            }
+            List<CompletableFuture<byte[]>> decrypted = new ArrayList<>();
+            for (var context : contexts) {
+                decrypted.add(context.decrypt(expected));
+            }
+            for (int i = 0; i < contexts.size(); ++i) {
+                Assertions.assertArrayEquals(data, decrypted.get(i).get());
+                contexts.get(i).close();
+            }
+            Assertions.assertFalse(service.isShutdown());
+            Assertions.assertFalse(SymmetricEncrypterContext.getSharedExecutor().isShutdown());
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    private static Stream<Integer> sharedExecutorTest() {
+        return Stream.of(1, 2, Integer.MAX_VALUE);
+    }
+
+    @ParameterizedTest(name = "Testing interleaved encryption of independent messages (messages: {0}, parallelism: {1})")
+    @MethodSource
+    void interleavedEncryptionTest(int messagesCount, int parallelism) {
+        ExecutorService service = Executors.newFixedThreadPool(3);
+        try {
+            Random random = new Random(messagesCount);
+            byte[] key = new byte[16];
+            random.nextBytes(key);
+            for (SymmetricEncrypter encrypter : new SymmetricEncrypter[] { new DES(Arrays.copyOf(key, 8)), new DEAL(key) }) {
+                int blockSize = encrypter.getBlockSize();
+                byte[][] ivs = new byte[messagesCount][blockSize];
+                byte[][] messages = new byte[messagesCount][];
+                for (int i = 0; i < messagesCount; ++i) {
+                    random.nextBytes(ivs[i]);
+                    messages[i] = new byte[blockSize * random.nextInt(40)];
+                    random.nextBytes(messages[i]);
+                }
+                List<Function<byte[], FeedbackMode>> modes = List.of(iv -> new CBC(service, iv), iv -> new PCBC(service, iv), iv -> new CFB(service, iv));
+                for (Function<byte[], FeedbackMode> factory : modes) {
+                    FeedbackMode mode = factory.apply(new byte[blockSize]);
+                    mode.setParallelism(parallelism);
+                    ChainingState[] states = new ChainingState[messagesCount];
+                    byte[][] encrypted = new byte[messagesCount][];
+                    for (int i = 0; i < messagesCount; ++i) {
+                        states[i] = new ChainingState(ivs[i]);
+                        encrypted[i] = messages[i].clone();
+                    }
+                    mode.applyInterleaved(encrypted, encrypted, blockSize, encrypter, states);
+                    for (int i = 0; i < messagesCount; ++i) {
+                        FeedbackMode reference = factory.apply(ivs[i]);
+                        Assertions.assertArrayEquals(reference.apply(messages[i], blockSize, encrypter), encrypted[i]);
+                        Assertions.assertArrayEquals(messages[i], reference.reverse(encrypted[i], blockSize, encrypter));
+                        Assertions.assertEquals(messages[i].length / blockSize, states[i].getBlockIndex());
+                    }
+                }
+            }
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    private static Stream<Arguments> interleavedEncryptionTest() {
+        return Stream.of(0, 1, 5, 8, 33)
+                .flatMap(messagesCount -> Stream.of(1, 3).map(parallelism -> Arguments.of(messagesCount, parallelism)));
+    }
+
+}
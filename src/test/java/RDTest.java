@@ -0,0 +1,93 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.MethodSource;
+import ru.namerpro.cryptography.api.symmetric.SymmetricEncrypter;
+import ru.namerpro.cryptography.context.SymmetricEncrypterContext;
+import ru.namerpro.cryptography.context.encrypter.Encrypter;
+import ru.namerpro.cryptography.mode.Mode;
+import ru.namerpro.cryptography.mode.impl.RD;
+import ru.namerpro.cryptography.padding.Padding;
+import ru.namerpro.cryptography.symmetricencrypters.rijndael.Rijndael;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+class RDTest {
+
+    @ParameterizedTest(name = "Testing RD masks against BigInteger arithmetic (block size: {0}, IV length: {1}, first block: {2})")
+    @MethodSource
+    void masksMatchBigIntegerTest(int blockSize, int ivLength, long firstBlockIndex) {
+        Random random = new Random(31L * blockSize + ivLength + firstBlockIndex);
+        byte[] iv = new byte[ivLength];
+        random.nextBytes(iv);
+        iv[ivLength / 2] |= (byte) 0x80;
+        RD rd = new RD(ForkJoinPool.commonPool(), iv);
+        int blocksCount = 50;
+        byte[] masks = new byte[blocksCount * blockSize];
+        rd.apply(new byte[masks.length], 0, masks, 0, masks.length, blockSize, new Identity(blockSize), rd.getStateAt(firstBlockIndex, blockSize));
+
+        BigInteger initial = new BigInteger(1, iv);
+        BigInteger delta = new BigInteger(1, Arrays.copyOfRange(iv, ivLength / 2, ivLength / 2 * 2));
+        BigInteger modulus = BigInteger.ONE.shiftLeft(8 * blockSize);
+        for (int i = 0; i < blocksCount; ++i) {
+            BigInteger mask = initial.add(delta.multiply(BigInteger.valueOf(firstBlockIndex + i))).mod(modulus);
+            for (int k = 0; k < blockSize; ++k) {
+                Assertions.assertEquals(mask.shiftRight(8 * k).byteValue(), masks[(i + 1) * blockSize - 1 - k]);
+            }
+        }
+    }
+
+    private static Stream<Arguments> masksMatchBigIntegerTest() {
+        return Stream.of(8, 12, 16, 32)
+                .flatMap(blockSize -> Stream.of(blockSize, 2 * blockSize, blockSize + 3)
+                        .flatMap(ivLength -> Stream.of(0L, 1L << 40, Long.MAX_VALUE - 100).map(index -> Arguments.of(blockSize, ivLength, index))));
+    }
+
+    @ParameterizedTest(name = "Testing RD against ciphertext of the original implementation (IV: {0})")
+    @CsvSource({
+            "000000000000000000000000000000000f0e0d0c0b0a09080706050403020100, 9af018f460dc387b8adaef53b1d90d09c716eda31df9a6adb275fde6322682078888681d40b9269d93cb2782eaaad2cf"
+    })
+    void originalCiphertextTest(String iv, String cipher) throws ExecutionException, InterruptedException {
+        HexFormat hex = HexFormat.of();
+        byte[] data = "RD regression message spanning a few blocks!".getBytes(StandardCharsets.US_ASCII);
+        try (var context = new SymmetricEncrypterContext(Encrypter.RIJNDAEL, hex.parseHex("000102030405060708090a0b0c0d0e0f"), Mode.RD, Padding.PKCS7,
+                hex.parseHex(iv), Rijndael.RijndaelBlockSize.SZ_128_BITS, 283)) {
+            Assertions.assertArrayEquals(data, context.decrypt(hex.parseHex(cipher)).get());
+            Assertions.assertEquals(cipher, hex.formatHex(context.encrypt(data).get()));
+        }
+    }
+
+    private static class Identity implements SymmetricEncrypter {
+
+        private final int blockSize;
+
+        Identity(int blockSize) {
+            this.blockSize = blockSize;
+        }
+
+        @Override
+        public int getBlockSize() {
+            return blockSize;
+        }
+
+        @Override
+        public byte[] encrypt(byte[] block) {
+            return block.clone();
+        }
+
+        @Override
+        public byte[] decrypt(byte[] block) {
+            return block.clone();
+        }
+
+    }
+
+}
@@ -7,7 +7,12 @@ import ru.namerpro.cryptography.context.encrypter.Encrypter;
 import ru.namerpro.cryptography.mode.Mode;
 import ru.namerpro.cryptography.padding.Padding;
 import ru.namerpro.cryptography.symmetricencrypters.rijndael.Rijndael;
+import ru.namerpro.cryptography.utils.stateless.CryptoGF;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Stream;
 
@@ -20,6 +25,68 @@ class RijndaelTest {
         Assertions.assertArrayEquals(expected, encrypted);
     }
 
+    @ParameterizedTest(name = "Testing rijndael T-tables engine (block size: {0}, key length: {1}, modulo: {2})")
+    @MethodSource
+    void rijndaelEnginesEquivalenceTest(Rijndael.RijndaelBlockSize blockSize, int keyLength, byte modulo) {
+        Random random = new Random(keyLength * 31L + modulo);
+        byte[] key = new byte[keyLength];
+        random.nextBytes(key);
+        Rijndael reference = new Rijndael(blockSize, key, modulo, Rijndael.RijndaelEngine.STATE_MATRIX);
+        Rijndael tTables = new Rijndael(blockSize, key, modulo, Rijndael.RijndaelEngine.T_TABLES);
+        byte[] block = new byte[switch (blockSize) {
+            case SZ_128_BITS -> 16;
+            case SZ_192_BITS -> 24;
+            case SZ_256_BITS -> 32;
+        }];
+        for (int i = 0; i < 4; ++i) {
+            random.nextBytes(block);
+            byte[] encrypted = tTables.encrypt(block);
+            Assertions.assertArrayEquals(reference.encrypt(block), encrypted);
+            Assertions.assertArrayEquals(reference.decrypt(encrypted), tTables.decrypt(encrypted));
+            Assertions.assertArrayEquals(block, tTables.decrypt(encrypted));
+        }
+    }
+
+    @ParameterizedTest(name = "Testing rijndael multi-block processing (block size: {0}, blocks: {1})")
+    @MethodSource
+    void rijndaelBatchTest(Rijndael.RijndaelBlockSize blockSize, int blocksCount) {
+        Random random = new Random(blocksCount * 31L + blockSize.ordinal());
+        byte[] key = new byte[24];
+        random.nextBytes(key);
+        Rijndael rijndael = new Rijndael(blockSize, key, (byte) 0x1B);
+        int size = rijndael.getBlockSize();
+        byte[] data = new byte[size * (blocksCount + 1)];
+        random.nextBytes(data);
+
+        byte[] expected = new byte[data.length];
+        for (int i = 0; i < blocksCount; ++i) {
+            rijndael.encryptBlock(data, size + i * size, expected, i * size);
+        }
+        byte[] encrypted = data.clone();
+        rijndael.encryptBlocks(encrypted, size, encrypted, size, blocksCount);
+        Assertions.assertArrayEquals(Arrays.copyOf(expected, blocksCount * size), Arrays.copyOfRange(encrypted, size, data.length));
+        byte[] decrypted = new byte[data.length];
+        rijndael.decryptBlocks(encrypted, size, decrypted, 0, blocksCount);
+        Assertions.assertArrayEquals(Arrays.copyOfRange(data, size, data.length), Arrays.copyOf(decrypted, blocksCount * size));
+    }
+
+    private static Stream<Arguments> rijndaelBatchTest() {
+        return Stream.of(Rijndael.RijndaelBlockSize.values())
+                .flatMap(blockSize -> Stream.of(0, 1, 3, 4, 5, 8, 11).map(blocksCount -> Arguments.of(blockSize, blocksCount)));
+    }
+
+    private static Stream<Arguments> rijndaelEnginesEquivalenceTest() {
+        List<Arguments> arguments = new ArrayList<>();
+        for (var blockSize : Rijndael.RijndaelBlockSize.values()) {
+            for (int keyLength : new int[] { 16, 24, 32 }) {
+                for (byte modulo : CryptoGF.getIrreduciblePolynomials8()) {
+                    arguments.add(Arguments.of(blockSize, keyLength, modulo));
+                }
+            }
+        }
+        return arguments.stream();
+    }
+
     private static Stream<Arguments> rijndaelStandardTest() {
         return Stream.of(
                 Arguments.of(